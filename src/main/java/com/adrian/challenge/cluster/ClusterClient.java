@@ -0,0 +1,214 @@
+package com.adrian.challenge.cluster;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.exceptions.IdempotencyKeyConflictException;
+import com.adrian.challenge.exceptions.InvalidOrderAmountException;
+import com.adrian.challenge.exceptions.OrderRejectedException;
+import com.adrian.challenge.exceptions.OrderTimeoutException;
+import com.adrian.challenge.models.CustomerStats;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.models.OrderResponse;
+import com.adrian.challenge.models.ProcessedOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * HTTP calls between cluster nodes. Requests forwarded to the owner of a customer carry {@link #FORWARDED}, so the
+ * owner processes them itself even if its own view of the ring differs for a moment, and a request never travels
+ * more than one hop.
+ * <p>
+ * Answers of the owner are turned back into the results and exceptions of a local order, so the forwarding node
+ * responds exactly as the owner did. A node that can't be connected to fails with
+ * {@link NodeUnavailableException}: the request never reached it and can safely go elsewhere.
+ */
+@Component
+public class ClusterClient {
+    /** Set on forwarded requests to the node that forwarded them. */
+    public static final String FORWARDED = "X-Cluster-Forwarded";
+    /** Set on handoffs to {@code orders.cluster.secret}, when there is one. */
+    public static final String SECRET = "X-Cluster-Secret";
+    public static final String PING_PATH = "/cluster/ping";
+    public static final String ORDERS_PATH = "/cluster/orders";
+
+    private final ObjectMapper mapper;
+    private final String self;
+    private final String secret;
+    private final Duration connectTimeout;
+    private final Duration maxTimeout;
+    /** Null unless the cluster is enabled. */
+    private final HttpClient http;
+
+    public ClusterClient(ObjectMapper mapper, OrderProperties properties) {
+        OrderProperties.Cluster config = properties.getCluster();
+        this.mapper = mapper;
+        this.self = ClusterMembership.selfOf(config);
+        this.secret = config.getSecret();
+        this.connectTimeout = config.getConnectTimeout();
+        this.maxTimeout = properties.getProcessing().getMaxTimeout();
+        this.http = config.isEnabled()
+                ? HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(connectTimeout).build()
+                : null;
+    }
+
+    /**
+     * Whether {@code node} answers, within the connect timeout.
+     */
+    public CompletableFuture<Boolean> ping(String node) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + PING_PATH))
+                .timeout(connectTimeout)
+                .GET()
+                .build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, ex) -> ex == null && response.statusCode() == HttpStatus.OK.value());
+    }
+
+    /**
+     * Has {@code node} process {@code order}, completing like {@code OrderService.processOrder} would there, with the
+     * ID {@code node} gave the order.
+     */
+    public CompletableFuture<ProcessedOrder> forwardOrder(String node, Order order, String idempotencyKey, Duration timeout) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + "/processOrder"))
+                // the owner enforces the deadline and answers 504, this only guards against a node that hangs
+                .timeout((timeout != null ? timeout : maxTimeout).plus(connectTimeout))
+                .header(FORWARDED, self)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(toJson(order)));
+        if (idempotencyKey != null) {
+            request.header("Idempotency-Key", idempotencyKey);
+        }
+        if (timeout != null) {
+            request.header("X-Request-Timeout", timeout.toMillis() + "ms");
+        }
+        return send(node, request.build()).thenApply(response -> toResult(node, response));
+    }
+
+    public CompletableFuture<Optional<CustomerStats>> customerStats(String node, String customer) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + "/customers/"
+                        + URLEncoder.encode(customer, StandardCharsets.UTF_8).replace("+", "%20") + "/stats"))
+                .timeout(maxTimeout)
+                .header(FORWARDED, self)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .GET()
+                .build();
+        return send(node, request).thenApply(response -> {
+            if (response.statusCode() == HttpStatus.NOT_FOUND.value()) {
+                return Optional.empty();
+            }
+            if (response.statusCode() != HttpStatus.OK.value()) {
+                throw unexpected(node, response);
+            }
+            return Optional.of(fromJson(response.body(), CustomerStats.class));
+        });
+    }
+
+    /**
+     * Sends {@code orders}, encoded as by {@link OrderHandoff}, for {@code node} to keep.
+     */
+    public CompletableFuture<Void> handOff(String node, byte[] orders) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + ORDERS_PATH))
+                .timeout(maxTimeout)
+                .header(FORWARDED, self)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(orders));
+        if (secret != null && !secret.isEmpty()) {
+            request.header(SECRET, secret);
+        }
+        return send(node, request.build()).thenAccept(response -> {
+            if (response.statusCode() / 100 != 2) {
+                throw unexpected(node, response);
+            }
+        });
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(String node, HttpRequest request) {
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+                        throw new NodeUnavailableException(node, cause);
+                    }
+                    throw ex instanceof CompletionException completion ? completion : new CompletionException(ex);
+                });
+    }
+
+    private ProcessedOrder toResult(String node, HttpResponse<byte[]> response) {
+        int status = response.statusCode();
+        if (status == HttpStatus.CREATED.value()) {
+            OrderResponse processed = fromJson(response.body(), OrderResponse.class);
+            return ProcessedOrder.builder()
+                    .id(processed.getId())
+                    .message(processed.getOrderId())
+                    .build();
+        }
+        String error = errorOf(response.body());
+        if (status == HttpStatus.BAD_REQUEST.value()) {
+            throw new InvalidOrderAmountException(error);
+        }
+        if (status == HttpStatus.UNPROCESSABLE_ENTITY.value()) {
+            throw new IdempotencyKeyConflictException(error);
+        }
+        if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            long retryAfter = response.headers().firstValueAsLong(HttpHeaders.RETRY_AFTER).orElse(1);
+            throw new OrderRejectedException(error, Duration.ofSeconds(retryAfter));
+        }
+        if (status == HttpStatus.GATEWAY_TIMEOUT.value()) {
+            throw new OrderTimeoutException(error);
+        }
+        throw unexpected(node, response);
+    }
+
+    /**
+     * The {@code error} or {@code message} of an error body, or the whole body when it has neither.
+     */
+    private String errorOf(byte[] body) {
+        try {
+            JsonNode json = mapper.readTree(body);
+            JsonNode message = json.has("error") ? json.get("error") : json.get("message");
+            return message != null && message.isTextual() ? message.asText() : json.toString();
+        } catch (Exception e) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static IllegalStateException unexpected(String node, HttpResponse<byte[]> response) {
+        return new IllegalStateException("Node " + node + " answered " + response.statusCode() + ": "
+                + new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T fromJson(byte[] body, Class<T> type) {
+        try {
+            return mapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.adrian.challenge.cluster;
+
+import com.adrian.challenge.configs.OrderProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Which node owns each customer. The members are this node and the peers of {@code orders.cluster.peers} that
+ * answer the heartbeat, placed on a {@link ConsistentHashRing}: every peer is checked each
+ * {@code heartbeat-interval}, one that doesn't answer, or refuses a forwarded request, leaves the ring until it
+ * answers again. Peers start as members, so nodes started together agree on the ring from the first request.
+ * <p>
+ * Every change of the members builds a new ring and is reported to the {@link #onChange} listeners, which hand
+ * over the orders whose customers changed owner. With the cluster disabled the ring only holds this node.
+ */
+@Slf4j
+@Component
+public class ClusterMembership implements AutoCloseable {
+    private static final String STANDALONE = "local";
+
+    private final boolean enabled;
+    private final String self;
+    private final int virtualNodes;
+    private final ClusterClient client;
+    private final List<Consumer<ConsistentHashRing>> listeners = new CopyOnWriteArrayList<>();
+    private final Set<String> down = ConcurrentHashMap.newKeySet();
+    /** Null unless the cluster is enabled. */
+    private final ScheduledExecutorService heartbeats;
+
+    /** Configured peers, this node excluded. */
+    private volatile List<String> peers;
+    private volatile ConsistentHashRing ring;
+
+    public ClusterMembership(OrderProperties properties, ClusterClient client, MeterRegistry meterRegistry) {
+        OrderProperties.Cluster config = properties.getCluster();
+        if (config.isEnabled() && (config.getSelf() == null || config.getSelf().isBlank())) {
+            throw new IllegalArgumentException("orders.cluster.self is required when the cluster is enabled");
+        }
+        this.enabled = config.isEnabled();
+        this.self = selfOf(config);
+        this.virtualNodes = config.getVirtualNodes();
+        this.client = client;
+        this.peers = enabled ? peersOf(config.getPeers()) : List.of();
+        this.ring = new ConsistentHashRing(members(), virtualNodes);
+
+        Gauge.builder("order.cluster.nodes", this, membership -> membership.ring.nodes().size())
+                .description("Nodes currently sharing the customers, this one included")
+                .register(meterRegistry);
+
+        if (enabled) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ClusterHeartbeat-");
+            threadFactory.setDaemon(true);
+            this.heartbeats = new ScheduledThreadPoolExecutor(1, threadFactory);
+            long interval = config.getHeartbeatInterval().toMillis();
+            heartbeats.scheduleWithFixedDelay(this::checkPeers, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.heartbeats = null;
+        }
+    }
+
+    static String selfOf(OrderProperties.Cluster config) {
+        return config.getSelf() == null || config.getSelf().isBlank() ? STANDALONE : normalize(config.getSelf());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String self() {
+        return self;
+    }
+
+    public ConsistentHashRing ring() {
+        return ring;
+    }
+
+    public List<String> peers() {
+        return peers;
+    }
+
+    /**
+     * Whether {@code node} is one of the configured peers, up or not.
+     */
+    public boolean isPeer(String node) {
+        return node != null && peers.contains(normalize(node));
+    }
+
+    /**
+     * Peers that are configured but out of the ring because they stopped answering.
+     */
+    public Set<String> unavailablePeers() {
+        return Set.copyOf(down);
+    }
+
+    public String ownerOf(String customer) {
+        return ring.ownerOf(customer);
+    }
+
+    /**
+     * Calls {@code listener} with the new ring after every change of the members, from the thread that made it.
+     */
+    public void onChange(Consumer<ConsistentHashRing> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Replaces the configured peers, for a membership change without a restart. Every node must be given the same
+     * list.
+     */
+    public void setPeers(Collection<String> peers) {
+        if (!enabled) {
+            throw new IllegalStateException("The cluster is not enabled");
+        }
+        this.peers = peersOf(peers);
+        down.retainAll(this.peers);
+        update();
+    }
+
+    /**
+     * Takes {@code node} out of the ring until it answers a heartbeat again.
+     */
+    public void markDown(String node) {
+        if (peers.contains(node) && down.add(node)) {
+            log.warn("Cluster node {} is unavailable", node);
+            update();
+        }
+    }
+
+    void markUp(String node) {
+        if (down.remove(node)) {
+            log.info("Cluster node {} is available again", node);
+            update();
+        }
+    }
+
+    private void checkPeers() {
+        for (String peer : peers) {
+            client.ping(peer).thenAccept(available -> {
+                if (available) {
+                    markUp(peer);
+                } else {
+                    markDown(peer);
+                }
+            });
+        }
+    }
+
+    private synchronized void update() {
+        Set<String> members = members();
+        if (members.equals(ring.nodes())) {
+            return;
+        }
+        ring = new ConsistentHashRing(members, virtualNodes);
+        log.info("Cluster members are now {}", members);
+        listeners.forEach(listener -> listener.accept(ring));
+    }
+
+    private Set<String> members() {
+        Set<String> members = new TreeSet<>(peers);
+        members.removeAll(down);
+        members.add(self);
+        return members;
+    }
+
+    private List<String> peersOf(Collection<String> configured) {
+        List<String> result = new ArrayList<>();
+        for (String peer : configured) {
+            String node = normalize(peer);
+            if (!node.isEmpty() && !node.equals(self) && !result.contains(node)) {
+                result.add(node);
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private static String normalize(String node) {
+        String trimmed = node.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    @Override
+    public void close() {
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.adrian.challenge.cluster;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Consistent hashing of keys onto nodes. Every node is placed at {@code virtualNodes} points of a 64-bit ring and
+ * a key belongs to the node of the first point at or after its own hash, wrapping around.
+ * <p>
+ * Adding or removing a node only moves the keys between its points and the points before them, about
+ * {@code 1 / nodes} of all keys, and the many points per node keep the share of each node close to even. Hashes
+ * only depend on the strings, so every node computes the same ring from the same members. Immutable: a change
+ * of membership builds a new ring.
+ */
+public final class ConsistentHashRing {
+    /** Positions of the points, ascending. */
+    private final long[] points;
+    /** Node of each point. */
+    private final String[] owners;
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one node");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual nodes must be at least 1, got " + virtualNodes);
+        }
+        List<String> sorted = List.copyOf(new TreeSet<>(nodes)); // ties between equal points go to the same node everywhere
+        this.nodes = Set.copyOf(sorted);
+        long[][] entries = new long[sorted.size() * virtualNodes][];
+        int i = 0;
+        for (int n = 0; n < sorted.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                entries[i++] = new long[]{hash(sorted.get(n) + "#" + v), n};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[entries.length];
+        this.owners = new String[entries.length];
+        for (int p = 0; p < entries.length; p++) {
+            points[p] = entries[p][0];
+            owners[p] = sorted.get((int) entries[p][1]);
+        }
+    }
+
+    public String ownerOf(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1; // first point after the hash
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * The polynomial hash of {@link String#hashCode()} widened to 64 bits, then mixed with the MurmurHash3
+     * finalizer so that similar keys such as {@code node#1} and {@code node#2} land far apart.
+     */
+    static long hash(String key) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + key.charAt(i);
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,17 @@
+package com.adrian.challenge.cluster;
+
+/**
+ * Thrown when a request to another node fails before the node received it, so it can be sent to another one.
+ */
+public class NodeUnavailableException extends RuntimeException {
+    private final String node;
+
+    public NodeUnavailableException(String node, Throwable cause) {
+        super("Node " + node + " is unavailable", cause);
+        this.node = node;
+    }
+
+    public String getNode() {
+        return node;
+    }
+}
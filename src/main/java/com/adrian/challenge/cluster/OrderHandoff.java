@@ -0,0 +1,187 @@
+package com.adrian.challenge.cluster;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.exceptions.PartialSaveException;
+import com.adrian.challenge.repositories.CompactOrder;
+import com.adrian.challenge.repositories.OrderRecordCodec;
+import com.adrian.challenge.repositories.OrderStore;
+import com.adrian.challenge.services.CustomerStatistics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Moves stored orders to the node that owns their customer after the members of the cluster change, so that a
+ * node joining or coming back serves the whole history of its customers.
+ * <p>
+ * On every change a background thread goes over the store and sends each order whose customer now belongs to
+ * another node to that node, in batches of {@code handoff-batch-size} orders encoded as in the order journal,
+ * creation time included. The receiver keeps the orders it didn't have and adds them to the aggregates of their
+ * customer, so an order sent twice is only counted once. The sender keeps its copy, which is no longer read
+ * since requests for the customer go to the owner, until the store evicts it; orders of a node that left the
+ * cluster are not recovered until it is back. Changes made while a handoff is waiting to start are covered by
+ * that handoff.
+ */
+@Slf4j
+@Component
+public class OrderHandoff implements AutoCloseable {
+    /** Keeps a batch well under the request size limits of either web stack. */
+    private static final int MAX_BATCH_BYTES = 128 * 1024;
+
+    private final OrderStore orderStore;
+    private final CustomerStatistics customerStatistics;
+    private final ClusterMembership membership;
+    private final ClusterClient client;
+    private final int batchSize;
+    private final ExecutorService executor;
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    private final Counter sentCounter;
+    private final Counter receivedCounter;
+
+    public OrderHandoff(OrderStore orderStore, CustomerStatistics customerStatistics, ClusterMembership membership,
+                        ClusterClient client, OrderProperties properties, MeterRegistry meterRegistry) {
+        this.orderStore = orderStore;
+        this.customerStatistics = customerStatistics;
+        this.membership = membership;
+        this.client = client;
+        this.batchSize = properties.getCluster().getHandoffBatchSize();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("OrderHandoff-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newSingleThreadExecutor(threadFactory);
+        this.sentCounter = Counter.builder("order.cluster.handoff")
+                .description("Stored orders handed over between nodes after a membership change")
+                .tag("direction", "sent")
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("order.cluster.handoff")
+                .description("Stored orders handed over between nodes after a membership change")
+                .tag("direction", "received")
+                .register(meterRegistry);
+        membership.onChange(ring -> requestHandoff());
+    }
+
+    private void requestHandoff() {
+        if (pending.compareAndSet(false, true)) {
+            executor.execute(this::handOff);
+        }
+    }
+
+    private void handOff() {
+        pending.set(false);
+        ConsistentHashRing ring = membership.ring();
+        String self = membership.self();
+        Map<String, Batch> batches = new HashMap<>();
+        Set<String> failed = new HashSet<>();
+        try (Stream<CompactOrder> orders = orderStore.findCompactAfter(Long.MIN_VALUE)) {
+            orders.forEach(order -> {
+                String owner = ring.ownerOf(order.getCustomer());
+                if (owner.equals(self) || failed.contains(owner)) {
+                    return;
+                }
+                Batch batch = batches.computeIfAbsent(owner, node -> new Batch());
+                batch.add(order);
+                if (batch.count >= batchSize || batch.bytes.size() >= MAX_BATCH_BYTES) {
+                    send(owner, batch, failed);
+                }
+            });
+        }
+        batches.forEach((owner, batch) -> {
+            if (batch.count > 0 && !failed.contains(owner)) {
+                send(owner, batch, failed);
+            }
+        });
+    }
+
+    private void send(String owner, Batch batch, Set<String> failed) {
+        try {
+            client.handOff(owner, batch.bytes.toByteArray()).join();
+            sentCounter.increment(batch.count);
+        } catch (RuntimeException e) {
+            log.warn("Could not hand orders over to {}, they stay here until its next membership change: {}", owner, e.getMessage());
+            failed.add(owner);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Keeps the orders of {@code body} that aren't stored yet. The whole body is decoded before any order is kept,
+     * so a malformed one keeps nothing.
+     *
+     * @return the number of orders kept
+     * @throws IllegalArgumentException if {@code body} isn't a sequence of length-prefixed order records
+     */
+    public int receive(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        List<CompactOrder> received = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            int length = buffer.remaining() >= Integer.BYTES ? buffer.getInt() : -1;
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Malformed order handoff: record of " + length + " bytes at offset "
+                        + buffer.position() + " of " + body.length);
+            }
+            CompactOrder order = OrderRecordCodec.decode(buffer.slice(buffer.position(), length));
+            buffer.position(buffer.position() + length);
+            if (orderStore.findById(order.getId()).isEmpty()) {
+                received.add(order);
+            }
+        }
+        try {
+            orderStore.saveAll(received);
+        } catch (PartialSaveException e) {
+            // the sender keeps every order and sends them again, the ones saved now are skipped then
+            received.stream().filter(e::wasSaved).forEach(customerStatistics::record);
+            throw e;
+        }
+        received.forEach(customerStatistics::record);
+        receivedCounter.increment(received.size());
+        return received.size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Orders for one node, each as its length and its journal record.
+     */
+    private static final class Batch {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private int count;
+
+        void add(CompactOrder order) {
+            byte[] record = OrderRecordCodec.encode(order);
+            try {
+                out.writeInt(record.length);
+                out.write(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // not thrown by an in-memory stream
+            }
+            count++;
+        }
+
+        void clear() {
+            bytes.reset();
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.adrian.challenge.cluster;
+
+import com.adrian.challenge.models.CustomerStats;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.models.ProcessedOrder;
+import com.adrian.challenge.repositories.CompactOrder;
+import com.adrian.challenge.services.CustomerStatistics;
+import com.adrian.challenge.services.OrderIdempotencyCache;
+import com.adrian.challenge.services.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Entry point of the order endpoints: processes the orders of the customers this node owns and forwards the rest
+ * to their owner, so that every order and every aggregate of a customer lives on one node.
+ * <p>
+ * Requests already forwarded by another node are always handled here. When the owner can't be reached it leaves
+ * the ring and the request is routed once more, to the node that took over its customers, possibly this one.
+ */
+@Service
+public class OrderRouter {
+    private final OrderService orderService;
+    private final OrderIdempotencyCache idempotencyCache;
+    private final CustomerStatistics customerStatistics;
+    private final ClusterMembership membership;
+    private final ClusterClient client;
+
+    private final Timer forwardedTimer;
+    private final Timer failedTimer;
+
+    public OrderRouter(OrderService orderService, OrderIdempotencyCache idempotencyCache,
+                       CustomerStatistics customerStatistics, ClusterMembership membership, ClusterClient client,
+                       MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        this.idempotencyCache = idempotencyCache;
+        this.customerStatistics = customerStatistics;
+        this.membership = membership;
+        this.client = client;
+        this.forwardedTimer = forwardTimer(meterRegistry, "success");
+        this.failedTimer = forwardTimer(meterRegistry, "failure");
+    }
+
+    private static Timer forwardTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("order.cluster.forward.duration")
+                .description("Requests forwarded to the node owning their customer, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Processes {@code order} within {@code timeout}, replaying the result of a previous attempt with the same
+     * {@code idempotencyKey} if there was one.
+     *
+     * @param forwarded whether another node forwarded the request
+     */
+    public CompletableFuture<ProcessedOrder> processOrder(Order order, Duration timeout, String idempotencyKey,
+                                                  boolean forwarded) {
+        return route(order.getCustomer(), forwarded,
+                owner -> client.forwardOrder(owner, order, idempotencyKey, timeout),
+                () -> idempotencyKey == null
+                        ? orderService.processOrder(order, timeout)
+                        : idempotencyCache.process(idempotencyKey, order, () -> orderService.processOrder(order, timeout)));
+    }
+
+    public CompletableFuture<ProcessedOrder> processOrder(CompactOrder order, Duration timeout, boolean forwarded) {
+        return route(order.getCustomer(), forwarded,
+                owner -> client.forwardOrder(owner, order.toOrder(), null, timeout),
+                () -> orderService.processOrder(order, timeout));
+    }
+
+    public CompletableFuture<Optional<CustomerStats>> customerStats(String customer, boolean forwarded) {
+        return route(customer, forwarded,
+                owner -> client.customerStats(owner, customer),
+                () -> CompletableFuture.completedFuture(customerStatistics.find(customer)));
+    }
+
+    private <T> CompletableFuture<T> route(String customer, boolean forwarded,
+                                           Function<String, CompletableFuture<T>> remote, Supplier<CompletableFuture<T>> local) {
+        return route(customer, forwarded, remote, local, true);
+    }
+
+    private <T> CompletableFuture<T> route(String customer, boolean forwarded, Function<String, CompletableFuture<T>> remote,
+                                           Supplier<CompletableFuture<T>> local, boolean retry) {
+        String owner = membership.ownerOf(customer);
+        if (forwarded || !membership.isEnabled() || owner.equals(membership.self())) {
+            return local.get();
+        }
+        long start = System.nanoTime();
+        return remote.apply(owner)
+                .whenComplete((result, ex) -> (ex == null ? forwardedTimer : failedTimer).record(Duration.ofNanos(System.nanoTime() - start)))
+                .exceptionallyCompose(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (retry && cause instanceof NodeUnavailableException unavailable) {
+                        membership.markDown(unavailable.getNode());
+                        return route(customer, false, remote, local, false);
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+}
@@ -1,22 +1,104 @@
 package com.adrian.challenge.configs;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
+@Slf4j
 @Configuration
+@EnableConfigurationProperties(OrderProperties.class)
 public class AsyncConfig {
+    public static final String ORDER_EXECUTOR = "orderExecutor";
+    public static final String EXPORT_EXECUTOR = "exportExecutor";
 
-    @Bean("orderExecutor")
-    public Executor orderExecutor() {
+    /**
+     * The only executor running order processing. Sized from {@code orders.executor.*}, instrumented with
+     * the Micrometer {@code executor.*} meters and drained on shutdown.
+     */
+    @Bean(ORDER_EXECUTOR)
+    public AsyncTaskExecutor orderExecutor(OrderProperties properties, MeterRegistry meterRegistry) {
+        OrderProperties.Executor config = properties.getExecutor();
+        Tags tags = Tags.of("name", ORDER_EXECUTOR);
+        if (config.getMode() == OrderProperties.ExecutionMode.VIRTUAL) {
+            try {
+                return virtualThreadExecutor(config, meterRegistry, tags);
+            } catch (UnsupportedOperationException e) {
+                log.warn("Virtual threads are not available on this runtime, falling back to platform threads");
+            }
+        }
+
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("Tasks rejected because the order executor was saturated")
+                .tags(tags)
+                .register(meterRegistry);
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(50);          // hilos activos mínimos
-        executor.setMaxPoolSize(200);          // máximo simultáneo
-        executor.setQueueCapacity(500);        // cola de tareas en espera
+        executor.setCorePoolSize(config.getCorePoolSize());          // hilos activos mínimos
+        executor.setMaxPoolSize(config.getMaxPoolSize());            // máximo simultáneo
+        executor.setQueueCapacity(config.getQueueCapacity());        // cola de tareas en espera
+        executor.setKeepAliveSeconds((int) config.getKeepAlive().toSeconds());
         executor.setThreadNamePrefix("OrderThread-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            new ThreadPoolExecutor.AbortPolicy().rejectedExecution(task, pool);
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);          // terminar las órdenes en curso al apagar
+        executor.setAwaitTerminationMillis(config.getShutdownTimeout().toMillis());
         executor.initialize();
+
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), ORDER_EXECUTOR, Tags.empty())
+                .bindTo(meterRegistry);
+        return executor;
+    }
+
+    /**
+     * Writes streamed responses of Spring MVC, such as the NDJSON export, to the clients. Kept apart from the order
+     * executor so that slow export clients can't take threads from order processing.
+     */
+    @Bean(EXPORT_EXECUTOR)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public AsyncTaskExecutor exportExecutor(OrderProperties properties) {
+        OrderProperties.Export config = properties.getExport();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(config.getWriterThreads());
+        executor.setMaxPoolSize(config.getWriterThreads());
+        executor.setQueueCapacity(config.getQueueCapacity());
+        executor.setThreadNamePrefix("ExportThread-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static AsyncTaskExecutor virtualThreadExecutor(OrderProperties.Executor config, MeterRegistry meterRegistry, Tags tags) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("OrderVThread-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(config.getVirtualConcurrencyLimit()); // órdenes simultáneas
+        executor.setTaskTerminationTimeout(config.getShutdownTimeout().toMillis());
+
+        AtomicInteger active = new AtomicInteger();
+        executor.setTaskDecorator(task -> () -> {
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+        Gauge.builder("executor.active", active, AtomicInteger::get)
+                .description("The approximate number of threads that are actively executing tasks")
+                .tags(tags)
+                .register(meterRegistry);
         return executor;
     }
 }
@@ -0,0 +1,408 @@
+package com.adrian.challenge.configs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tunables for the order processing subsystem, bound from the {@code orders.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "orders")
+public class OrderProperties {
+
+    private Executor executor = new Executor();
+
+    private Admission admission = new Admission();
+
+    private Store store = new Store();
+
+    private Id id = new Id();
+
+    private Processing processing = new Processing();
+
+    private Idempotency idempotency = new Idempotency();
+
+    private Pipeline pipeline = new Pipeline();
+
+    private Tracing tracing = new Tracing();
+
+    private Warmup warmup = new Warmup();
+
+    private Cluster cluster = new Cluster();
+
+    private Export export = new Export();
+
+    @Data
+    public static class Executor {
+
+        /**
+         * Kind of threads used to run order processing.
+         */
+        private ExecutionMode mode = ExecutionMode.PLATFORM;
+
+        private int corePoolSize = 100;
+
+        private int maxPoolSize = 300;
+
+        /**
+         * Runs waiting for a thread. The pool only starts threads past its core size once this is full, and the
+         * pipeline stages queue the orders themselves, so by default it is 0 and the pool grows straight to its
+         * maximum size.
+         */
+        private int queueCapacity = 0;
+
+        private Duration keepAlive = Duration.ofSeconds(30);
+
+        /**
+         * Maximum number of orders running at the same time in {@link ExecutionMode#VIRTUAL} mode.
+         */
+        private int virtualConcurrencyLimit = 10_000;
+
+        /**
+         * How long shutdown waits for in-flight orders to finish.
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Admission {
+
+        /**
+         * Maximum number of orders admitted for processing at the same time.
+         */
+        private int maxInFlight = 800;
+
+        /**
+         * Maximum number of orders waiting for an in-flight slot before new ones are shed.
+         */
+        private int maxQueued = 1_000;
+
+        /**
+         * How long an order may wait for an in-flight slot before it is shed.
+         */
+        private Duration queueWaitTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Value sent in the Retry-After header of shed requests.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        /**
+         * Adjusts the in-flight limit to the latency of the business stage, up to {@code maxInFlight}.
+         */
+        private AdaptiveLimit adaptive = new AdaptiveLimit();
+    }
+
+    @Data
+    public static class AdaptiveLimit {
+
+        /**
+         * Whether the in-flight limit adapts to the measured latency instead of staying at {@code maxInFlight}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Limit to start from, before any latency has been measured.
+         */
+        private int initialLimit = 20;
+
+        /**
+         * Lowest the limit goes however high the latency gets.
+         */
+        private int minLimit = 4;
+
+        /**
+         * Latency samples averaged before the limit is adjusted once.
+         */
+        private int windowSize = 50;
+
+        /**
+         * Windows over which the lowest average latency is taken as the latency without queueing.
+         */
+        private int baselineWindows = 100;
+
+        /**
+         * How many times the latency without queueing is tolerated before the limit is lowered.
+         */
+        private double tolerance = 1.5;
+
+        /**
+         * Weight of each adjustment, lower values change the limit more slowly but more steadily.
+         */
+        private double smoothing = 0.2;
+    }
+
+    @Data
+    public static class Store {
+
+        /**
+         * Maximum number of processed orders kept, the oldest ones are evicted first.
+         */
+        private long maxSize = 1_000_000;
+
+        /**
+         * How long a processed order is kept.
+         */
+        private Duration ttl = Duration.ofHours(24);
+
+        /**
+         * Whether processed orders survive a restart.
+         */
+        private Persistence persistence = Persistence.NONE;
+
+        private Journal journal = new Journal();
+    }
+
+    @Data
+    public static class Journal {
+
+        /**
+         * Directory holding the journal segment files.
+         */
+        private String directory = "data/journal";
+
+        /**
+         * Size of each memory-mapped segment file, a new one is started when the current one is full.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * How long the group committer waits to gather appends before flushing them to disk together.
+         */
+        private Duration flushInterval = Duration.ofMillis(2);
+    }
+
+    @Data
+    public static class Id {
+
+        /**
+         * Identifies this node inside order IDs (0-1023), must be different on every node.
+         */
+        private int nodeId = 0;
+    }
+
+    @Data
+    public static class Processing {
+
+        /**
+         * Shortest simulated business logic latency per order.
+         */
+        private Duration minLatency = Duration.ofMillis(100);
+
+        /**
+         * Longest simulated business logic latency per order, zero disables the simulated latency.
+         */
+        private Duration maxLatency = Duration.ofMillis(500);
+
+        /**
+         * How long an order may take, admission included, when its request sets no X-Request-Timeout.
+         */
+        private Duration defaultTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Longest timeout a request may ask for, longer ones are cut down to it.
+         */
+        private Duration maxTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Idempotency {
+
+        /**
+         * Maximum number of Idempotency-Key results remembered, the oldest ones are evicted first.
+         */
+        private long maxSize = 100_000;
+
+        /**
+         * How long the result of an order sent with an Idempotency-Key is replayed to retries.
+         */
+        private Duration ttl = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Tracing {
+
+        /**
+         * Fraction of orders, between 0 and 1, that emit a Flight Recorder event for each step of their processing
+         * while a recording has them enabled.
+         */
+        private double sampleRate = 0.01;
+
+        /**
+         * Slowest recent orders listed by the slowOrders actuator endpoint, 0 disables it.
+         */
+        private int slowOrders = 20;
+
+        /**
+         * How long the slowest orders are ranked together, each one stays listed for one to two windows.
+         */
+        private Duration slowOrdersWindow = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Warmup {
+
+        /**
+         * Exercises the order path at startup, before the web server accepts requests and before readiness.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Sample orders run through the order path, enough for the JIT to compile its hot methods.
+         */
+        private int iterations = 5_000;
+
+        /**
+         * Longest the warmup may delay startup, it stops early once this has elapsed.
+         */
+        private Duration maxDuration = Duration.ofSeconds(3);
+    }
+
+    @Data
+    public static class Cluster {
+
+        /**
+         * Partitions customers over the nodes of {@code peers}: each node processes and keeps the orders of the
+         * customers it owns, and forwards the rest to their owner.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Base URL other nodes reach this node at, exactly as it appears in their {@code peers}.
+         */
+        private String self;
+
+        /**
+         * Base URLs of every node of the cluster, this one included or not.
+         */
+        private List<String> peers = new ArrayList<>();
+
+        /**
+         * Points of each node on the hash ring, more spread the customers more evenly.
+         */
+        private int virtualNodes = 256;
+
+        /**
+         * How often every peer is checked; a peer that doesn't answer leaves the ring until it answers again.
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(1);
+
+        /**
+         * How long a peer has to answer a heartbeat or accept a forwarded request.
+         */
+        private Duration connectTimeout = Duration.ofMillis(500);
+
+        /**
+         * Orders sent at once when handing orders over to the node that now owns their customer.
+         */
+        private int handoffBatchSize = 500;
+
+        /**
+         * Shared by the nodes of the cluster: when set, a node only keeps handed-over orders sent with it.
+         */
+        private String secret;
+    }
+
+    @Data
+    public static class Export {
+
+        /**
+         * Threads writing the orders of streamed exports to their clients in the servlet mode. An export only holds
+         * one while it has orders ready to write.
+         */
+        private int writerThreads = 8;
+
+        /**
+         * Writes waiting for a writer thread, beyond them the export fails.
+         */
+        private int queueCapacity = 1000;
+    }
+
+    @Data
+    public static class Pipeline {
+
+        /**
+         * Business logic stage, run on the order executor. Its default parallelism of 0 takes as many workers as
+         * the executor runs at once.
+         */
+        private Stage business = new Stage(0, 1_024, 1);
+
+        /**
+         * Storage stage, each worker run writes its batch of orders to the store at once.
+         */
+        private Stage storage = new Stage(1, 1_024, 64);
+
+        /**
+         * Per-customer lanes, used instead of the stages when enabled.
+         */
+        private Lanes lanes = new Lanes();
+    }
+
+    @Data
+    public static class Lanes {
+
+        /**
+         * Whether orders are partitioned by customer, so that the orders of a customer complete in arrival order.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of lanes, each processing one order at a time on the order executor. Kept within the threads the
+         * executor takes at once, as its queue is empty by default.
+         */
+        private int count = 256;
+
+        /**
+         * Orders waiting in each lane, rounded up to a power of two.
+         */
+        private int queueCapacity = 256;
+
+        /**
+         * Maximum number of orders a lane takes from its queue at a time and stores together.
+         */
+        private int batchSize = 1;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stage {
+
+        /**
+         * Maximum number of workers processing orders of the stage at the same time, 0 in the business stage to
+         * size it from the order executor.
+         */
+        private int parallelism = 1;
+
+        /**
+         * Orders waiting for the stage, rounded up to a power of two.
+         */
+        private int queueCapacity = 1_024;
+
+        /**
+         * Maximum number of orders a worker takes from the queue at a time.
+         */
+        private int batchSize = 1;
+    }
+
+    public enum Persistence {
+        /** Orders only live in memory. */
+        NONE,
+        /** Orders are also appended to a memory-mapped journal and recovered on startup. */
+        JOURNAL
+    }
+
+    public enum ExecutionMode {
+        /** Bounded pool of platform threads. */
+        PLATFORM,
+        /** One virtual thread per order (Java 21+), falls back to {@link #PLATFORM} on older runtimes. */
+        VIRTUAL
+    }
+}
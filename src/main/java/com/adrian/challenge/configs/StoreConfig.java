@@ -0,0 +1,27 @@
+package com.adrian.challenge.configs;
+
+import com.adrian.challenge.repositories.InMemoryOrderStore;
+import com.adrian.challenge.repositories.JournalOrderStore;
+import com.adrian.challenge.repositories.OrderStore;
+import com.adrian.challenge.services.CustomerStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class StoreConfig {
+
+    @Bean
+    public OrderStore orderStore(OrderProperties properties, MeterRegistry meterRegistry,
+                                 CustomerStatistics customerStatistics) {
+        OrderProperties.Store config = properties.getStore();
+        InMemoryOrderStore memoryStore = new InMemoryOrderStore(config, meterRegistry, Clock.systemUTC());
+        if (config.getPersistence() == OrderProperties.Persistence.JOURNAL) {
+            return new JournalOrderStore(memoryStore, config, meterRegistry, Clock.systemUTC(),
+                    customerStatistics::record);
+        }
+        return memoryStore;
+    }
+}
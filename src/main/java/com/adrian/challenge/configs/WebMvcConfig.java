@@ -0,0 +1,30 @@
+package com.adrian.challenge.configs;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC of the servlet mode.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WebMvcConfig implements WebMvcConfigurer {
+    private final AsyncTaskExecutor exportExecutor;
+
+    public WebMvcConfig(@Qualifier(AsyncConfig.EXPORT_EXECUTOR) AsyncTaskExecutor exportExecutor) {
+        this.exportExecutor = exportExecutor;
+    }
+
+    /**
+     * Streams reactive return values, the order export, on the export executor instead of the unbounded
+     * {@code SimpleAsyncTaskExecutor} Spring MVC falls back to.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportExecutor);
+    }
+}
@@ -0,0 +1,77 @@
+package com.adrian.challenge.controllers;
+
+import com.adrian.challenge.cluster.ClusterClient;
+import com.adrian.challenge.cluster.ClusterMembership;
+import com.adrian.challenge.cluster.OrderHandoff;
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.exceptions.CustomBadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Calls between cluster nodes, see {@link ClusterClient}. Served by both the servlet and the reactive web
+ * application.
+ */
+@RestController
+public class ClusterController {
+    @Autowired
+    private ClusterMembership membership;
+
+    @Autowired
+    private OrderHandoff handoff;
+
+    @Autowired
+    private OrderProperties properties;
+
+    /**
+     * Heartbeat: answers with this node's name as soon as it takes requests.
+     */
+    @GetMapping(ClusterClient.PING_PATH)
+    public String ping() {
+        return membership.self();
+    }
+
+    /**
+     * Orders handed over by a node that no longer owns their customers: 404 unless this node is in a cluster, 403
+     * unless {@link ClusterClient#FORWARDED} names one of its peers and {@code orders.cluster.secret}, if set, was
+     * sent along, and 400 for a malformed body. Storing them may wait for the journal, so it runs off the request
+     * thread, which in the reactive mode is an event loop.
+     */
+    @PostMapping(value = ClusterClient.ORDERS_PATH, consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Mono<ResponseEntity<Void>> receiveOrders(
+            @RequestBody byte[] orders,
+            @RequestHeader(value = ClusterClient.FORWARDED, required = false) String forwardedBy,
+            @RequestHeader(value = ClusterClient.SECRET, required = false) String secret) {
+        if (!membership.isEnabled()) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        if (!membership.isPeer(forwardedBy) || !hasSecret(secret)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        }
+        return Mono.fromRunnable(() -> handoff.receive(orders))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorMap(IllegalArgumentException.class, e -> new CustomBadRequestException(e.getMessage(), e))
+                .thenReturn(ResponseEntity.noContent().build());
+    }
+
+    private boolean hasSecret(String secret) {
+        String expected = properties.getCluster().getSecret();
+        if (expected == null || expected.isEmpty()) {
+            return true;
+        }
+        return secret != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,44 @@
+package com.adrian.challenge.controllers;
+
+import com.adrian.challenge.cluster.ClusterMembership;
+import com.adrian.challenge.models.ClusterView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.Access;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * {@code /actuator/cluster}: the members this node shares customers with, and, with
+ * {@code management.endpoint.cluster.access=unrestricted}, a {@code POST} with
+ * {@code {"peers": "http://a:8080,http://b:8080"}} to change the peer list without a restart. Every node must be
+ * given the same list.
+ */
+@Component
+@Endpoint(id = "cluster", defaultAccess = Access.READ_ONLY)
+public class ClusterEndpoint {
+    @Autowired
+    private ClusterMembership membership;
+
+    @ReadOperation
+    public ClusterView cluster() {
+        return ClusterView.builder()
+                .enabled(membership.isEnabled())
+                .self(membership.self())
+                .peers(membership.peers())
+                .members(List.copyOf(new TreeSet<>(membership.ring().nodes())))
+                .unavailable(List.copyOf(new TreeSet<>(membership.unavailablePeers())))
+                .build();
+    }
+
+    @WriteOperation
+    public ClusterView setPeers(String peers) {
+        membership.setPeers(Arrays.asList(peers.split(",")));
+        return cluster();
+    }
+}
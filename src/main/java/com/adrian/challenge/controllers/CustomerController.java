@@ -0,0 +1,33 @@
+package com.adrian.challenge.controllers;
+
+import com.adrian.challenge.cluster.ClusterClient;
+import com.adrian.challenge.cluster.OrderRouter;
+import com.adrian.challenge.models.CustomerStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Customer queries. Served by both the servlet and the reactive web application: they answer from memory, or
+ * from the node owning the customer in cluster mode, without blocking.
+ */
+@RestController
+public class CustomerController {
+    @Autowired
+    private OrderRouter orderRouter;
+
+    /**
+     * Running aggregates of the orders of a customer, 404 if it has none yet.
+     */
+    @GetMapping("/customers/{id}/stats")
+    public CompletableFuture<ResponseEntity<CustomerStats>> getStats(
+            @PathVariable("id") String customer,
+            @RequestHeader(value = ClusterClient.FORWARDED, required = false) String forwardedBy) {
+        return orderRouter.customerStats(customer, forwardedBy != null).thenApply(ResponseEntity::of);
+    }
+}
@@ -1,48 +1,119 @@
 package com.adrian.challenge.controllers;
 
+import com.adrian.challenge.cluster.ClusterClient;
+import com.adrian.challenge.cluster.OrderRouter;
+import com.adrian.challenge.configs.SmileConfig;
 import com.adrian.challenge.exceptions.CustomBadRequestException;
+import com.adrian.challenge.models.BatchOrderResult;
 import com.adrian.challenge.models.Order;
-import com.adrian.challenge.services.OrderService;
+import com.adrian.challenge.models.OrderResponse;
+import com.adrian.challenge.repositories.CompactOrder;
+import com.adrian.challenge.services.OrderBatchProcessor;
+import com.adrian.challenge.validators.StreamingOrderReader;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 
+/**
+ * Order API on Spring MVC, served unless the application runs as a reactive web application
+ * (see {@link ReactiveOrderController}).
+ */
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class OrderController {
     @Autowired
-    private OrderService orderService;
-
-    @PostMapping("/processOrder")
-    public CompletableFuture<ResponseEntity<Map<String, Object>>> processOrder(@Valid @RequestBody Order request) {
-        log.info("Processing order for customer: {}", request.getCustomer());
-        
-        return orderService.processOrder(request)
-                .thenApply(orderId -> {
-                    log.info("Successfully processed order with ID: {}", orderId);
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("status", "success");
-                    response.put("orderId", orderId);
-                    response.put("message", "Order processed successfully");
-                    return ResponseEntity.status(HttpStatus.CREATED).body(response);
-                })
-                .exceptionally(ex -> {
-                    log.error("Error processing order: {}", ex.getMessage(), ex);
-                    Map<String, Object> errorResponse = new HashMap<>();
-                    errorResponse.put("status", "error");
-                    errorResponse.put("message", "Failed to process order: " + ex.getCause().getMessage());
-                    return ResponseEntity.internalServerError().body(errorResponse);
-                });
+    private OrderRouter orderRouter;
+
+    @Autowired
+    private OrderBatchProcessor batchProcessor;
+
+    @Autowired
+    private StreamingOrderReader orderReader;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    /**
+     * Processes an order within the deadline of {@code X-Request-Timeout}, or the default one, and cancels it if the
+     * request ends first. Retries sent with the same {@code Idempotency-Key} get the result of the first attempt
+     * instead of processing the order again; that attempt is only cut short by its deadline, since retries may be
+     * waiting for it.
+     * <p>
+     * The order and the response are JSON or Smile, as chosen by {@code Content-Type} and {@code Accept}.
+     */
+    @PostMapping(value = "/processOrder",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, SmileConfig.APPLICATION_SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, SmileConfig.APPLICATION_SMILE_VALUE})
+    public DeferredResult<ResponseEntity<OrderResponse>> processOrder(
+            @Valid @RequestBody Order request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = OrderResponses.REQUEST_TIMEOUT, required = false) String timeoutHeader,
+            @RequestHeader(value = ClusterClient.FORWARDED, required = false) String forwardedBy) {
+        log.debug("Processing order for customer: {}", request.getCustomer());
+
+        Duration timeout = OrderResponses.parseTimeout(timeoutHeader);
+        return OrderResponses.toDeferredResult(
+                orderRouter.processOrder(request, timeout, idempotencyKey, forwardedBy != null));
+    }
+
+    /**
+     * Same as {@link #processOrder}, for orders with a very large number of items: the body is read and validated
+     * item by item as it streams in, and rejected at the first invalid item, without materializing it as an
+     * {@link Order}.
+     */
+    @PostMapping(value = "/processLargeOrder", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<ResponseEntity<OrderResponse>> processLargeOrder(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+            @RequestHeader(value = OrderResponses.REQUEST_TIMEOUT, required = false) String timeoutHeader,
+            @RequestHeader(value = ClusterClient.FORWARDED, required = false) String forwardedBy) throws IOException {
+        Duration timeout = OrderResponses.parseTimeout(timeoutHeader);
+        CompactOrder request = orderReader.read(body, contentLength != null ? contentLength : -1);
+        log.debug("Processing order of {} items for customer: {}", request.getItemCount(), request.getCustomer());
+
+        return OrderResponses.toDeferredResult(orderRouter.processOrder(request, timeout, forwardedBy != null));
+    }
+
+    /**
+     * Accepts a JSON array or an NDJSON stream of orders and streams one NDJSON {@link BatchOrderResult}
+     * per order, in completion order.
+     */
+    @PostMapping(value = "/processOrders",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseBodyEmitter processOrders(InputStream body) throws IOException {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        MappingIterator<Order> orders = mapper.readerFor(Order.class).readValues(body);
+
+        batchProcessor.process(orders, result -> send(emitter, result))
+                .whenComplete((ignored, ex) -> emitter.complete());
+        return emitter;
+    }
+
+    private void send(ResponseBodyEmitter emitter, BatchOrderResult result) {
+        try {
+            emitter.send(mapper.writeValueAsString(result) + "\n", MediaType.APPLICATION_NDJSON);
+        } catch (IOException e) {
+            log.debug("Could not stream result of order {}: {}", result.getIndex(), e.getMessage());
+        }
     }
 }
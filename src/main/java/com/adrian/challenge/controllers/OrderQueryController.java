@@ -0,0 +1,53 @@
+package com.adrian.challenge.controllers;
+
+import com.adrian.challenge.exceptions.CustomBadRequestException;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.models.OrderPage;
+import com.adrian.challenge.services.OrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Listing and export of processed orders. Served by both the servlet and the reactive web application: Spring MVC
+ * streams the export {@link Flux} the same way WebFlux does.
+ * <p>
+ * Both walk the store in ascending ID order from a cursor, the ID of the last order already seen, so a client
+ * pages through the store without the server keeping any state between requests. They read the live store:
+ * orders stored or evicted while a client is paging may or may not show up.
+ */
+@RestController
+public class OrderQueryController {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private OrderService orderService;
+
+    /**
+     * Up to {@code limit} orders after {@code cursor}, with the cursor of the next page if there are more.
+     */
+    @GetMapping(value = "/orders", produces = MediaType.APPLICATION_JSON_VALUE)
+    public OrderPage getOrders(@RequestParam(value = "cursor", defaultValue = "0") long cursor,
+                               @RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new CustomBadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE + ", got " + limit);
+        }
+        return orderService.getProcessedOrders(cursor, limit);
+    }
+
+    /**
+     * Every order after {@code cursor} as NDJSON, one line per order. Orders are read from the store only as the
+     * client takes them, so memory stays flat however many are exported, and a client that drops the connection
+     * can resume from the ID of the last line it received.
+     */
+    @GetMapping(value = "/orders", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Order> exportOrders(@RequestParam(value = "cursor", defaultValue = "0") long cursor) {
+        return Flux.fromStream(() -> orderService.streamProcessedOrders(cursor))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
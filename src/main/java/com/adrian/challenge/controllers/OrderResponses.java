@@ -0,0 +1,96 @@
+package com.adrian.challenge.controllers;
+
+import com.adrian.challenge.exceptions.CustomBadRequestException;
+import com.adrian.challenge.exceptions.IdempotencyKeyConflictException;
+import com.adrian.challenge.exceptions.InvalidOrderAmountException;
+import com.adrian.challenge.exceptions.OrderRejectedException;
+import com.adrian.challenge.exceptions.OrderTimeoutException;
+import com.adrian.challenge.models.OrderResponse;
+import com.adrian.challenge.models.ProcessedOrder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Response of the single-order endpoints, shared by the servlet and the reactive controllers.
+ */
+@Slf4j
+final class OrderResponses {
+    /** Overrides the default deadline of an order, e.g. {@code 500ms}, {@code 2s} or a number of milliseconds. */
+    static final String REQUEST_TIMEOUT = "X-Request-Timeout";
+
+    private OrderResponses() {
+    }
+
+    /**
+     * Timeout of the {@link #REQUEST_TIMEOUT} header, null when absent so that the default applies.
+     */
+    static Duration parseTimeout(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            Duration timeout = DurationStyle.detectAndParse(header.trim(), ChronoUnit.MILLIS);
+            if (!timeout.isNegative() && !timeout.isZero()) {
+                return timeout;
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        throw new CustomBadRequestException(REQUEST_TIMEOUT + " must be a positive duration such as 500ms or 2s, got: " + header);
+    }
+
+    /**
+     * Same as {@link #toResponse}, and cancels the order if the request ends before it is processed: when the
+     * client disconnects, as far as the servlet container notices, or the async request times out.
+     */
+    static DeferredResult<ResponseEntity<OrderResponse>> toDeferredResult(CompletableFuture<ProcessedOrder> result) {
+        DeferredResult<ResponseEntity<OrderResponse>> response = new DeferredResult<>();
+        response.onError(ex -> result.cancel(true));
+        response.onTimeout(() -> result.cancel(true));
+        toResponse(result).whenComplete((entity, ex) -> {
+            if (ex == null) {
+                response.setResult(entity);
+            } else {
+                response.setErrorResult(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            }
+        });
+        return response;
+    }
+
+    static CompletableFuture<ResponseEntity<OrderResponse>> toResponse(CompletableFuture<ProcessedOrder> result) {
+        return result
+                .thenApply(order -> {
+                    log.debug("Successfully processed order with ID: {}", order.getId());
+                    return ResponseEntity.status(HttpStatus.CREATED).body(OrderResponse.success(order));
+                })
+                .exceptionally(ex -> {
+                    if (ex.getCause() instanceof OrderRejectedException rejected) {
+                        throw rejected; // answered with 429 by GlobalExceptionHandler
+                    }
+                    if (ex.getCause() instanceof InvalidOrderAmountException invalid) {
+                        throw invalid; // answered with 400 by GlobalExceptionHandler
+                    }
+                    if (ex.getCause() instanceof OrderTimeoutException timeout) {
+                        throw timeout; // answered with 504 by GlobalExceptionHandler
+                    }
+                    if (ex.getCause() instanceof IdempotencyKeyConflictException conflict) {
+                        throw conflict; // answered with 422 by GlobalExceptionHandler, from the owner of the customer
+                    }
+                    if (ex.getCause() instanceof CancellationException cancelled) {
+                        throw cancelled; // nobody is waiting for the response
+                    }
+                    log.error("Error processing order: {}", ex.getMessage(), ex);
+                    return ResponseEntity.internalServerError()
+                            .body(OrderResponse.error("Failed to process order: " + ex.getCause().getMessage()));
+                });
+    }
+}
@@ -0,0 +1,81 @@
+package com.adrian.challenge.controllers;
+
+import com.adrian.challenge.cluster.ClusterClient;
+import com.adrian.challenge.cluster.OrderRouter;
+import com.adrian.challenge.configs.SmileConfig;
+import com.adrian.challenge.models.BatchOrderResult;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.models.OrderResponse;
+import com.adrian.challenge.models.ProcessedOrder;
+import com.adrian.challenge.services.OrderBatchProcessor;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order API on WebFlux, served instead of {@link OrderController} when the application is started with
+ * {@code spring.main.web-application-type=reactive}.
+ * <p>
+ * Bodies are decoded without blocking and the responses complete from the futures of {@link OrderRouter}, so no
+ * thread is held by a request while its order waits for admission or is processed. {@code /processLargeOrder} is
+ * servlet only, it reads the body as a blocking stream.
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderController {
+    @Autowired
+    private OrderRouter orderRouter;
+
+    @Autowired
+    private OrderBatchProcessor batchProcessor;
+
+    /**
+     * Same as {@link OrderController#processOrder}. The order is cancelled when the response is, which WebFlux does
+     * as soon as the client disconnects.
+     */
+    @PostMapping(value = "/processOrder",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, SmileConfig.APPLICATION_SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, SmileConfig.APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<OrderResponse>> processOrder(
+            @Valid @RequestBody Order request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = OrderResponses.REQUEST_TIMEOUT, required = false) String timeoutHeader,
+            @RequestHeader(value = ClusterClient.FORWARDED, required = false) String forwardedBy) {
+        log.debug("Processing order for customer: {}", request.getCustomer());
+
+        Duration timeout = OrderResponses.parseTimeout(timeoutHeader);
+        CompletableFuture<ProcessedOrder> result =
+                orderRouter.processOrder(request, timeout, idempotencyKey, forwardedBy != null);
+        return Mono.fromFuture(OrderResponses.toResponse(result))
+                .doOnCancel(() -> result.cancel(true));
+    }
+
+    /**
+     * Accepts a JSON array or an NDJSON stream of orders and streams one NDJSON {@link BatchOrderResult}
+     * per order, in completion order. Orders are read as fast as they are admitted.
+     */
+    @PostMapping(value = "/processOrders",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchOrderResult> processOrders(@RequestBody Flux<Order> orders) {
+        AtomicInteger read = new AtomicInteger();
+        return orders
+                .flatMap(order -> Mono.fromFuture(batchProcessor.processOne(read.getAndIncrement(), order)))
+                // The rest of the body can't be read reliably, report what was read so far and stop
+                .onErrorResume(e -> Mono.just(BatchOrderResult.error(read.get(), "Malformed order: " + e.getMessage())));
+    }
+}
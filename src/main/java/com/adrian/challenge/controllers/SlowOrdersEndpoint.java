@@ -0,0 +1,26 @@
+package com.adrian.challenge.controllers;
+
+import com.adrian.challenge.models.SlowOrder;
+import com.adrian.challenge.services.SlowOrderLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/slowOrders}: the slowest recent orders with the time each step of their processing took, to
+ * see whether a slow order waited in a queue or in the business logic without tracing every request.
+ */
+@Component
+@Endpoint(id = "slowOrders")
+public class SlowOrdersEndpoint {
+    @Autowired
+    private SlowOrderLog slowOrderLog;
+
+    @ReadOperation
+    public List<SlowOrder> slowOrders() {
+        return slowOrderLog.slowest();
+    }
+}
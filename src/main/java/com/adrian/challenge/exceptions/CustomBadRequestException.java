@@ -6,14 +6,16 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 /**
  * Exception thrown when a request contains invalid data or fails validation.
  * Results in a 400 Bad Request response when handled by GlobalExceptionHandler.
+ * Like {@link InvalidOrderAmountException} it captures no stack trace, the cause keeps its own.
  */
 @ResponseStatus(HttpStatus.BAD_REQUEST)
 public class CustomBadRequestException extends RuntimeException {
 
     public CustomBadRequestException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
+
     public CustomBadRequestException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 }
@@ -0,0 +1,11 @@
+package com.adrian.challenge.exceptions;
+
+/**
+ * Exception thrown when an Idempotency-Key is reused with a different order than the one it was first sent with.
+ * Results in a 422 Unprocessable Entity response when handled by GlobalExceptionHandler.
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
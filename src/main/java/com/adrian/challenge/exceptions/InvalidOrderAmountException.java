@@ -1,7 +1,14 @@
 package com.adrian.challenge.exceptions;
 
+/**
+ * Exception thrown when the amount of an order doesn't match the sum of its items.
+ * Results in a 400 Bad Request response when handled by GlobalExceptionHandler.
+ * <p>
+ * It is part of the normal answer to a bad request, so it captures no stack trace: filling one in would cost more
+ * than validating the order.
+ */
 public class InvalidOrderAmountException extends RuntimeException {
     public InvalidOrderAmountException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
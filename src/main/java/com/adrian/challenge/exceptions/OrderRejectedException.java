@@ -0,0 +1,20 @@
+package com.adrian.challenge.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when an order is shed because the node is overloaded.
+ * Results in a 429 Too Many Requests response with a Retry-After header when handled by GlobalExceptionHandler.
+ */
+@Getter
+public class OrderRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public OrderRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
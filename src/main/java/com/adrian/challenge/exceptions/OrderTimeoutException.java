@@ -0,0 +1,11 @@
+package com.adrian.challenge.exceptions;
+
+/**
+ * Exception thrown when an order is not processed before the deadline of its request. Whatever was left of its
+ * processing is abandoned. Results in a 504 Gateway Timeout response when handled by GlobalExceptionHandler.
+ */
+public class OrderTimeoutException extends RuntimeException {
+    public OrderTimeoutException(String message) {
+        super(message);
+    }
+}
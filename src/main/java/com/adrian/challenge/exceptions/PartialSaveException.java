@@ -0,0 +1,33 @@
+package com.adrian.challenge.exceptions;
+
+import com.adrian.challenge.repositories.CompactOrder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Exception thrown when only part of a batch of orders could be saved. The orders of {@link #getUnsaved()} were
+ * not saved, the rest of the batch was; the cause is why the first of them failed.
+ */
+@Getter
+public class PartialSaveException extends RuntimeException {
+
+    private final List<CompactOrder> unsaved;
+
+    public PartialSaveException(List<CompactOrder> unsaved, Throwable cause) {
+        super(unsaved.size() + " orders could not be saved: " + cause.getMessage(), cause);
+        this.unsaved = List.copyOf(unsaved);
+    }
+
+    /**
+     * Whether {@code order}, of the batch that failed, was saved anyway.
+     */
+    public boolean wasSaved(CompactOrder order) {
+        for (CompactOrder failed : unsaved) {
+            if (failed == order) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
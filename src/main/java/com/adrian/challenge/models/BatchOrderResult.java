@@ -0,0 +1,34 @@
+package com.adrian.challenge.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Outcome of one order of a batch, streamed back as a line of NDJSON as soon as the order completes.
+ */
+@Builder
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchOrderResult {
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+    public static final String REJECTED = "rejected";
+
+    /** Position of the order in the request body. */
+    private int index;
+
+    private String status;
+
+    private Long orderId;
+
+    private String message;
+
+    public static BatchOrderResult error(int index, String message) {
+        return BatchOrderResult.builder()
+                .index(index)
+                .status(ERROR)
+                .message(message)
+                .build();
+    }
+}
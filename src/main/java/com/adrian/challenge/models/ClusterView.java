@@ -0,0 +1,28 @@
+package com.adrian.challenge.models;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Membership of the cluster as seen by one node.
+ */
+@Builder
+@Data
+public class ClusterView {
+
+    private boolean enabled;
+
+    /** Name of this node, its base URL when the cluster is enabled. */
+    private String self;
+
+    /** Configured peers, this node excluded. */
+    private List<String> peers;
+
+    /** Nodes on the hash ring, this one included. */
+    private List<String> members;
+
+    /** Configured peers left out of the ring because they don't answer. */
+    private List<String> unavailable;
+}
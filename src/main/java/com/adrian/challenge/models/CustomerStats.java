@@ -0,0 +1,28 @@
+package com.adrian.challenge.models;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Aggregates of the orders a customer has had processed.
+ */
+@Builder
+@Data
+public class CustomerStats {
+
+    private String customer;
+
+    private long orderCount;
+
+    /** Sum of the amounts of the orders. */
+    private BigDecimal totalAmount;
+
+    /** Number of item lines over all the orders. */
+    private long itemCount;
+
+    /** Creation time of the most recent order. */
+    private Instant lastOrderAt;
+}
@@ -0,0 +1,21 @@
+package com.adrian.challenge.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of processed orders, in ascending ID order.
+ */
+@Builder
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderPage {
+
+    private List<Order> orders;
+
+    /** Cursor to request the next page with, absent on the last page. */
+    private Long nextCursor;
+}
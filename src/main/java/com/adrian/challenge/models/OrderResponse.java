@@ -0,0 +1,42 @@
+package com.adrian.challenge.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Response of the single-order endpoints.
+ */
+@Builder
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderResponse {
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+
+    private String status;
+
+    /** ID the order was given. Absent on error. */
+    private Long id;
+
+    /** Result message of the processed order, which contains its ID. Absent on error. */
+    private String orderId;
+
+    private String message;
+
+    public static OrderResponse success(ProcessedOrder order) {
+        return OrderResponse.builder()
+                .status(SUCCESS)
+                .id(order.getId())
+                .orderId(order.getMessage())
+                .message("Order processed successfully")
+                .build();
+    }
+
+    public static OrderResponse error(String message) {
+        return OrderResponse.builder()
+                .status(ERROR)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.adrian.challenge.models;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Result of an order processed successfully, by this node or by the node owning its customer.
+ */
+@Builder
+@Data
+public class ProcessedOrder {
+
+    /** ID the order was given when processed. */
+    private long id;
+
+    private String message;
+
+    public static ProcessedOrder of(long id) {
+        return ProcessedOrder.builder()
+                .id(id)
+                .message("Order " + id + " processed successfully")
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.adrian.challenge.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One of the slowest recent orders, with the time it spent in each step of its processing.
+ */
+@Builder
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SlowOrder {
+
+    /** Absent when the order failed before it was given an ID. */
+    private Long orderId;
+
+    private String customer;
+
+    /** {@code success}, or the kind of error the order failed with, as in {@code order.processing.duration}. */
+    private String outcome;
+
+    private Instant completedAt;
+
+    private double totalMillis;
+
+    /**
+     * Milliseconds spent in each step the order finished, in order: {@code validation}, {@code admission},
+     * {@code business_queue}, {@code business}, {@code storage_queue} and {@code storage}. They add up to
+     * {@code totalMillis} but for the step the order failed or was abandoned in.
+     */
+    private Map<String, Double> steps;
+}
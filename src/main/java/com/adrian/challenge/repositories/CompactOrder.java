@@ -0,0 +1,270 @@
+package com.adrian.challenge.repositories;
+
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Memory-compact, immutable form of a processed {@link Order}. Amounts are kept as {@code long} cents and items are
+ * packed into a single {@code long[]} of (productId, unitPriceCents, quantity) triples instead of a list of
+ * {@link Item} objects.
+ * <p>
+ * An amount or unit price with more than two decimals, or too large for {@code long} cents, is kept exactly as a
+ * {@link BigDecimal} instead and its cents read {@link #NOT_CENTS}. Orders where everything fits, nearly all of
+ * them, don't hold any {@link BigDecimal}.
+ */
+public final class CompactOrder {
+    /** Cents of an amount kept as an exact {@link BigDecimal}, never a valid amount in cents. */
+    public static final long NOT_CENTS = Long.MIN_VALUE;
+
+    private static final int ITEM_FIELDS = 3;
+    private static final int CENTS_SCALE = 2;
+    private static final long[] CENTS_FACTOR = {100L, 10L, 1L};
+    /** Below 10^18 the unscaled value of a {@link BigDecimal} is held in a {@code long}, not a BigInteger. */
+    private static final int MAX_COMPACT_DIGITS = 18;
+
+    private final long id;
+    private final String customer;
+    private final long amountCents;
+    private final long createdAtMillis;
+    private final int itemCount;
+    private final long[] itemData;
+    private final String[] names;
+    /** Null unless some value isn't in cents: the amount at 0, then the unit price of each item, null where in cents. */
+    private final BigDecimal[] exact;
+
+    private CompactOrder(long id, String customer, long amountCents, long createdAtMillis, int itemCount,
+                         long[] itemData, String[] names, BigDecimal[] exact) {
+        this.id = id;
+        this.customer = customer;
+        this.amountCents = amountCents;
+        this.createdAtMillis = createdAtMillis;
+        this.itemCount = itemCount;
+        this.itemData = itemData;
+        this.names = names;
+        this.exact = exact;
+    }
+
+    public static CompactOrder from(Order order, long createdAtMillis) {
+        List<Item> items = order.getItems();
+        Builder builder = builder(order.getId(), order.getCustomer(), 0, createdAtMillis, items.size())
+                .amount(order.getAmount());
+        for (Item item : items) {
+            builder.addItem(item.getProductId(), item.getName(), item.getQuantity(), item.getUnitPrice());
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(long id, String customer, long amountCents, long createdAtMillis, int itemCount) {
+        return new Builder(id, customer, amountCents, createdAtMillis, itemCount);
+    }
+
+    /**
+     * Same order with the given ID. Item arrays are shared.
+     */
+    public CompactOrder withId(long id) {
+        return new CompactOrder(id, customer, amountCents, createdAtMillis, itemCount, itemData, names, exact);
+    }
+
+    /**
+     * Same order owned by an equal, canonical {@code customer} instance. Item arrays are shared.
+     */
+    CompactOrder withCustomer(String customer) {
+        return new CompactOrder(id, customer, amountCents, createdAtMillis, itemCount, itemData, names, exact);
+    }
+
+    public Order toOrder() {
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(Item.builder()
+                    .productId(getProductId(i))
+                    .name(names[i])
+                    .quantity(getQuantity(i))
+                    .unitPrice(getUnitPrice(i))
+                    .build());
+        }
+        return Order.builder()
+                .id(id)
+                .customer(customer)
+                .amount(getAmount())
+                .items(items)
+                .build();
+    }
+
+    /**
+     * {@code amount} in cents if it has at most two decimals and fits, else {@link #NOT_CENTS}. Never rounds.
+     */
+    public static long toCents(BigDecimal amount) {
+        int scale = amount.scale();
+        if (scale < 0 || scale > CENTS_SCALE || amount.precision() > MAX_COMPACT_DIGITS) {
+            return NOT_CENTS;
+        }
+        try {
+            // At scale 0 longValueExact reads the unscaled value without creating a BigInteger
+            return Math.multiplyExact(amount.scaleByPowerOfTen(scale).longValueExact(), CENTS_FACTOR[scale]);
+        } catch (ArithmeticException overflow) {
+            return NOT_CENTS;
+        }
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    /**
+     * The amount in cents, {@link #NOT_CENTS} if it is only kept exactly, see {@link #getAmount()}.
+     */
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public BigDecimal getAmount() {
+        return amountCents != NOT_CENTS ? fromCents(amountCents) : exact[0];
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public long getProductId(int index) {
+        return itemData[index * ITEM_FIELDS];
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public int getQuantity(int index) {
+        return (int) itemData[index * ITEM_FIELDS + 2];
+    }
+
+    /**
+     * The unit price of an item in cents, {@link #NOT_CENTS} if it is only kept exactly, see {@link #getUnitPrice}.
+     */
+    public long getUnitPriceCents(int index) {
+        return itemData[index * ITEM_FIELDS + 1];
+    }
+
+    public BigDecimal getUnitPrice(int index) {
+        long cents = getUnitPriceCents(index);
+        return cents != NOT_CENTS ? fromCents(cents) : exact[index + 1];
+    }
+
+    /**
+     * Collects the items of an order. {@code itemCount} is the expected number of items, the builder grows past it
+     * when an order turns out to have more.
+     */
+    public static final class Builder {
+        private long id;
+        private String customer;
+        private long amountCents;
+        private final long createdAtMillis;
+        private long[] itemData;
+        private String[] names;
+        private BigDecimal[] exact;
+        private int count;
+
+        private Builder(long id, String customer, long amountCents, long createdAtMillis, int itemCount) {
+            this.id = id;
+            this.customer = customer;
+            this.amountCents = amountCents;
+            this.createdAtMillis = createdAtMillis;
+            this.itemData = new long[itemCount * ITEM_FIELDS];
+            this.names = new String[itemCount];
+        }
+
+        public Builder id(long id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder customer(String customer) {
+            this.customer = customer;
+            return this;
+        }
+
+        public Builder amountCents(long amountCents) {
+            this.amountCents = amountCents;
+            setExact(0, null);
+            return this;
+        }
+
+        /**
+         * Sets the amount, in cents if it fits, else exactly.
+         */
+        public Builder amount(BigDecimal amount) {
+            long cents = toCents(amount);
+            this.amountCents = cents;
+            setExact(0, cents == NOT_CENTS ? amount : null);
+            return this;
+        }
+
+        public Builder addItem(long productId, String name, int quantity, long unitPriceCents) {
+            if (count == names.length) {
+                int capacity = Math.max(8, count * 2);
+                itemData = Arrays.copyOf(itemData, capacity * ITEM_FIELDS);
+                names = Arrays.copyOf(names, capacity);
+            }
+            int offset = count * ITEM_FIELDS;
+            itemData[offset] = productId;
+            itemData[offset + 1] = unitPriceCents;
+            itemData[offset + 2] = quantity;
+            names[count++] = name;
+            return this;
+        }
+
+        /**
+         * Adds an item whose unit price is kept in cents if it fits, else exactly.
+         */
+        public Builder addItem(long productId, String name, int quantity, BigDecimal unitPrice) {
+            long cents = toCents(unitPrice);
+            addItem(productId, name, quantity, cents);
+            if (cents == NOT_CENTS) {
+                setExact(count, unitPrice);
+            }
+            return this;
+        }
+
+        private void setExact(int index, BigDecimal value) {
+            if (value == null && (exact == null || index >= exact.length)) {
+                return;
+            }
+            if (exact == null || index >= exact.length) {
+                exact = Arrays.copyOf(exact != null ? exact : new BigDecimal[0], Math.max(index + 1, names.length + 1));
+            }
+            exact[index] = value;
+        }
+
+        public int getItemCount() {
+            return count;
+        }
+
+        /**
+         * Builds the order, copying the item arrays to their exact size only if more than an eighth of them is unused.
+         */
+        public CompactOrder build() {
+            BigDecimal[] exactValues = exact == null ? null : Arrays.copyOf(exact, count + 1);
+            if (names.length - count <= count >> 3) {
+                return new CompactOrder(id, customer, amountCents, createdAtMillis, count, itemData, names, exactValues);
+            }
+            return new CompactOrder(id, customer, amountCents, createdAtMillis, count,
+                    Arrays.copyOf(itemData, count * ITEM_FIELDS), Arrays.copyOf(names, count), exactValues);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.adrian.challenge.repositories;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.models.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bounded in-memory {@link OrderStore}. Orders are kept as {@link CompactOrder}s, indexed by customer and
+ * evicted oldest first once the store exceeds its maximum size or an order outlives its TTL.
+ * <p>
+ * Orders are sorted by ID in a skip list, so {@link #findAfter(long)} can resume a walk from any ID without
+ * copying the store. Its {@code size()} is not constant time, the number of orders is counted separately.
+ */
+public class InMemoryOrderStore implements OrderStore {
+    private final ConcurrentNavigableMap<Long, CompactOrder> orders = new ConcurrentSkipListMap<>();
+    private final AtomicLong orderCount = new AtomicLong();
+    private final Map<String, CustomerIndex> customers = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<CompactOrder> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final long maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter sizeEvictionCounter;
+    private final Counter ttlEvictionCounter;
+
+    public InMemoryOrderStore(OrderProperties.Store config, MeterRegistry meterRegistry, Clock clock) {
+        this.maxSize = config.getMaxSize();
+        this.ttlMillis = config.getTtl().toMillis();
+        this.clock = clock;
+        this.hitCounter = lookupCounter(meterRegistry, "hit");
+        this.missCounter = lookupCounter(meterRegistry, "miss");
+        this.sizeEvictionCounter = evictionCounter(meterRegistry, "size");
+        this.ttlEvictionCounter = evictionCounter(meterRegistry, "ttl");
+        Gauge.builder("order.store.size", orderCount, AtomicLong::get)
+                .description("Orders currently held in the order store")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("order.store.lookups")
+                .description("Order store lookups by id, by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter evictionCounter(MeterRegistry meterRegistry, String cause) {
+        return Counter.builder("order.store.evictions")
+                .description("Orders evicted from the order store, by cause")
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void save(Order order) {
+        save(CompactOrder.from(order, clock.millis()));
+    }
+
+    @Override
+    public void save(CompactOrder order) {
+        put(order);
+        evict();
+    }
+
+    /**
+     * Evicts once for the whole batch.
+     */
+    @Override
+    public void saveAll(List<CompactOrder> orders) {
+        for (CompactOrder order : orders) {
+            put(order);
+        }
+        evict();
+    }
+
+    private void put(CompactOrder order) {
+        CustomerIndex index = customers.compute(order.getCustomer(), (customer, existing) -> {
+            CustomerIndex customerIndex = existing != null ? existing : new CustomerIndex(customer);
+            customerIndex.ids.add(order.getId());
+            return customerIndex;
+        });
+        // Every order of a customer shares the index's String instance
+        CompactOrder stored = order.getCustomer() == index.customer ? order : order.withCustomer(index.customer);
+
+        CompactOrder previous = orders.put(stored.getId(), stored);
+        if (previous == null) {
+            orderCount.incrementAndGet();
+        }
+        if (previous != null && !previous.getCustomer().equals(stored.getCustomer())) {
+            unindex(previous);
+        }
+        insertionOrder.add(stored);
+    }
+
+    @Override
+    public Optional<Order> findById(long id) {
+        CompactOrder order = orders.get(id);
+        if (order == null || isExpired(order, clock.millis())) {
+            missCounter.increment();
+            return Optional.empty();
+        }
+        hitCounter.increment();
+        return Optional.of(order.toOrder());
+    }
+
+    @Override
+    public List<Order> findByCustomer(String customer) {
+        CustomerIndex index = customers.get(customer);
+        if (index == null) {
+            return List.of();
+        }
+        long now = clock.millis();
+        List<Order> result = new ArrayList<>(index.ids.size());
+        for (Long id : index.ids) {
+            CompactOrder order = orders.get(id);
+            if (order != null && !isExpired(order, now)) {
+                result.add(order.toOrder());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Order> findAll() {
+        long now = clock.millis();
+        List<Order> result = new ArrayList<>((int) Math.min(Integer.MAX_VALUE - 8, orderCount.get()));
+        for (CompactOrder order : orders.values()) {
+            if (!isExpired(order, now)) {
+                result.add(order.toOrder());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Stream<Order> findAfter(long afterId) {
+        return findCompactAfter(afterId).map(CompactOrder::toOrder);
+    }
+
+    @Override
+    public Stream<CompactOrder> findCompactAfter(long afterId) {
+        return orders.tailMap(afterId, false).values().stream()
+                .filter(order -> !isExpired(order, clock.millis()));
+    }
+
+    @Override
+    public long size() {
+        return orderCount.get();
+    }
+
+    /**
+     * Drops orders from the head of the insertion queue while the store is over capacity or they have expired.
+     * Entries that were overwritten since they were queued are skipped.
+     */
+    private void evict() {
+        long now = clock.millis();
+        CompactOrder oldest;
+        while ((oldest = insertionOrder.peek()) != null) {
+            boolean overCapacity = orderCount.get() > maxSize;
+            boolean expired = isExpired(oldest, now);
+            if (!overCapacity && !expired) {
+                return;
+            }
+            if (!insertionOrder.remove(oldest)) {
+                continue; // another thread evicted it
+            }
+            if (orders.remove(oldest.getId(), oldest)) {
+                orderCount.decrementAndGet();
+                unindex(oldest);
+                (expired ? ttlEvictionCounter : sizeEvictionCounter).increment();
+            }
+        }
+    }
+
+    private void unindex(CompactOrder order) {
+        customers.computeIfPresent(order.getCustomer(), (customer, index) -> {
+            index.ids.remove(order.getId());
+            return index.ids.isEmpty() ? null : index;
+        });
+    }
+
+    private boolean isExpired(CompactOrder order, long now) {
+        return now - order.getCreatedAtMillis() > ttlMillis;
+    }
+
+    private static final class CustomerIndex {
+        private final String customer;
+        private final Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        private CustomerIndex(String customer) {
+            this.customer = customer;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.adrian.challenge.repositories;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.exceptions.PartialSaveException;
+import com.adrian.challenge.models.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Durable {@link OrderStore}: every order is appended to an {@link OrderJournal} before it becomes visible in
+ * the in-memory store, and the in-memory store is rebuilt from the journal on startup.
+ */
+public class JournalOrderStore implements OrderStore, AutoCloseable {
+    private final InMemoryOrderStore delegate;
+    private final OrderJournal journal;
+    private final Clock clock;
+
+    public JournalOrderStore(InMemoryOrderStore delegate, OrderProperties.Store config, MeterRegistry meterRegistry, Clock clock) {
+        this(delegate, config, meterRegistry, clock, order -> {
+        });
+    }
+
+    /**
+     * Also passes every order recovered from the journal to {@code recovered}, after it is back in the store, so
+     * that state derived from the orders can be rebuilt along with it.
+     */
+    public JournalOrderStore(InMemoryOrderStore delegate, OrderProperties.Store config, MeterRegistry meterRegistry,
+                             Clock clock, Consumer<CompactOrder> recovered) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.journal = new OrderJournal(config.getJournal(), config.getTtl(), meterRegistry, order -> {
+            delegate.save(order);
+            recovered.accept(order);
+        });
+    }
+
+    /**
+     * Returns once the order is durable, waiting for the next group commit of the journal.
+     */
+    @Override
+    public void save(Order order) {
+        save(CompactOrder.from(order, clock.millis()));
+    }
+
+    @Override
+    public void save(CompactOrder order) {
+        journal.append(order).join();
+        delegate.save(order);
+    }
+
+    /**
+     * Appends the whole batch before waiting, so it is made durable by a single group commit. Orders whose append
+     * fails are left out of the store and reported by a {@link PartialSaveException} once the rest are saved.
+     */
+    @Override
+    public void saveAll(List<CompactOrder> orders) {
+        List<CompletableFuture<Void>> appends = new ArrayList<>(orders.size());
+        for (CompactOrder order : orders) {
+            appends.add(append(order));
+        }
+        List<CompactOrder> saved = new ArrayList<>(orders.size());
+        List<CompactOrder> unsaved = new ArrayList<>();
+        Throwable failure = null;
+        for (int i = 0; i < orders.size(); i++) {
+            try {
+                appends.get(i).join();
+                saved.add(orders.get(i));
+            } catch (CompletionException | CancellationException e) {
+                unsaved.add(orders.get(i));
+                if (failure == null) {
+                    failure = e.getCause() != null ? e.getCause() : e;
+                }
+            }
+        }
+        delegate.saveAll(saved);
+        if (!unsaved.isEmpty()) {
+            throw new PartialSaveException(unsaved, failure);
+        }
+    }
+
+    /**
+     * Appends {@code order}, failing the returned future rather than throwing.
+     */
+    private CompletableFuture<Void> append(CompactOrder order) {
+        try {
+            return journal.append(order);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public Optional<Order> findById(long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Order> findByCustomer(String customer) {
+        return delegate.findByCustomer(customer);
+    }
+
+    @Override
+    public List<Order> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<Order> findAfter(long afterId) {
+        return delegate.findAfter(afterId);
+    }
+
+    @Override
+    public Stream<CompactOrder> findCompactAfter(long afterId) {
+        return delegate.findCompactAfter(afterId);
+    }
+
+    @Override
+    public long size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+}
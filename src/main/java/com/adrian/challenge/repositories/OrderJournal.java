@@ -0,0 +1,321 @@
+package com.adrian.challenge.repositories;
+
+import com.adrian.challenge.configs.OrderProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of processed orders, written to memory-mapped segment files of a fixed size.
+ * <p>
+ * Each record is {@code length:int crc:int payload} (see {@link OrderRecordCodec}); a zero length marks the end of
+ * a segment. Appends are plain memory copies, a single committer thread flushes them to disk in groups every
+ * {@code flushInterval} and then completes their futures, so durability costs one {@code msync} per group rather
+ * than one per order.
+ */
+@Slf4j
+public class OrderJournal implements AutoCloseable {
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+    private final Duration retention;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasPending = lock.newCondition();
+    private List<CompletableFuture<Void>> pending = new ArrayList<>();
+    /** Segments rolled since the last commit, forced by the committer rather than by the append that filled them. */
+    private List<Segment> rolled = new ArrayList<>();
+    private Segment active;
+    private long nextSegmentNumber;
+    private volatile boolean closed;
+
+    private final Thread committer;
+
+    private final Counter appendCounter;
+    private final DistributionSummary commitBatchSize;
+
+    /**
+     * Opens the journal in {@code config.directory}, passing every valid record already on disk to {@code replay}
+     * in append order before accepting new appends.
+     */
+    public OrderJournal(OrderProperties.Journal config, Duration retention, MeterRegistry meterRegistry,
+                        Consumer<CompactOrder> replay) {
+        this.directory = Path.of(config.getDirectory());
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE, config.getSegmentSize().toBytes());
+        this.flushIntervalNanos = config.getFlushInterval().toNanos();
+        this.retention = retention;
+        this.appendCounter = Counter.builder("order.journal.appends")
+                .description("Orders appended to the order journal")
+                .register(meterRegistry);
+        this.commitBatchSize = DistributionSummary.builder("order.journal.commit.batch")
+                .description("Orders made durable by each group commit")
+                .register(meterRegistry);
+
+        try {
+            Files.createDirectories(directory);
+            recover(replay);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open order journal in " + directory, e);
+        }
+
+        this.committer = new Thread(this::commitLoop, "OrderJournalCommitter");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Appends {@code order}; the returned future completes once the record is durable on disk.
+     */
+    public CompletableFuture<Void> append(CompactOrder order) {
+        byte[] payload = OrderRecordCodec.encode(order);
+        if (payload.length + 2 * HEADER_BYTES > segmentSize) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Order " + order.getId() + " does not fit in a journal segment"));
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Order journal is closed");
+            }
+            // Keep room for the zero length that terminates the segment
+            if (active.buffer.remaining() < payload.length + 2 * HEADER_BYTES) {
+                roll();
+            }
+            active.buffer.putInt(payload.length);
+            active.buffer.putInt((int) crc.getValue());
+            active.buffer.put(payload);
+            pending.add(committed);
+            if (pending.size() == 1) {
+                hasPending.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        appendCounter.increment();
+        return committed;
+    }
+
+    private void commitLoop() {
+        while (!closed) {
+            lock.lock();
+            try {
+                while (pending.isEmpty() && !closed) {
+                    hasPending.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            LockSupport.parkNanos(flushIntervalNanos); // let concurrent appends join this group
+            commit();
+        }
+    }
+
+    private void commit() {
+        List<CompletableFuture<Void>> batch;
+        List<Segment> finished;
+        Segment segment;
+        int from;
+        int to;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+            finished = rolled;
+            rolled = new ArrayList<>();
+            segment = active;
+            from = segment.forcedUpTo;
+            to = segment.buffer.position();
+            segment.forcedUpTo = to;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            // Only the ranges written since the last commit, starting with the segments rolled meanwhile
+            for (Segment rolledSegment : finished) {
+                rolledSegment.buffer.force(rolledSegment.forcedUpTo,
+                        rolledSegment.buffer.position() - rolledSegment.forcedUpTo);
+            }
+            segment.buffer.force(from, to - from);
+            batch.forEach(future -> future.complete(null));
+        } catch (RuntimeException e) {
+            batch.forEach(future -> future.completeExceptionally(e));
+        }
+        commitBatchSize.record(batch.size());
+    }
+
+    /**
+     * Starts a new segment. The records of the finished one are forced by the next commit, whose group they belong
+     * to, so appends don't wait for a whole segment to reach the disk.
+     */
+    private void roll() {
+        rolled.add(active);
+        try {
+            active = Segment.create(segmentPath(nextSegmentNumber++), segmentSize);
+            deleteExpiredSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start a new order journal segment", e);
+        }
+    }
+
+    private void recover(Consumer<CompactOrder> replay) throws IOException {
+        long start = System.nanoTime();
+        long records = 0;
+        List<Path> segments = listSegments();
+        for (Path path : segments) {
+            Segment segment = Segment.open(path);
+            records += segment.replay(replay);
+            nextSegmentNumber = segmentNumber(path) + 1;
+            active = segment;
+        }
+        if (active == null || active.buffer.capacity() != segmentSize || active.buffer.remaining() < HEADER_BYTES) {
+            active = Segment.create(segmentPath(nextSegmentNumber++), segmentSize);
+        }
+        log.info("Recovered {} orders from {} journal segments in {} ms", records, segments.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void deleteExpiredSegments() throws IOException {
+        Instant cutoff = Instant.now().minus(retention);
+        for (Path path : listSegments()) {
+            if (!path.equals(active.path) && Files.getLastModifiedTime(path).toInstant().isBefore(cutoff)) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            hasPending.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        commit();
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int forcedUpTo; // guarded by the journal lock
+
+        private Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path path, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        static Segment open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            }
+        }
+
+        /**
+         * Replays the valid records of this segment and leaves the buffer positioned after the last one.
+         * A torn or corrupt record ends the segment and is zeroed so later appends start from a clean tail.
+         */
+        long replay(Consumer<CompactOrder> replay) {
+            long records = 0;
+            CRC32C crc = new CRC32C();
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    truncate(start, length != 0);
+                    return records;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    truncate(start, true);
+                    return records;
+                }
+                replay.accept(OrderRecordCodec.decode(payload));
+                buffer.position(buffer.position() + length);
+                records++;
+            }
+            forcedUpTo = buffer.position();
+            return records;
+        }
+
+        private void truncate(int position, boolean corrupt) {
+            buffer.position(position);
+            forcedUpTo = position;
+            if (corrupt) {
+                log.warn("Discarding torn record at offset {} of journal segment {}", position, path);
+                for (int i = position; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.force();
+            }
+        }
+    }
+}
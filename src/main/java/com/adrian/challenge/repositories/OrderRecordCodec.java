@@ -0,0 +1,133 @@
+package com.adrian.challenge.repositories;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of a {@link CompactOrder} in the order journal:
+ * <pre>
+ * id:long createdAtMillis:long amountCents:long [amount:string] customer:string itemCount:int
+ * itemCount x (productId:long unitPriceCents:long quantity:int name:string [unitPrice:string])
+ * </pre>
+ * where {@code string} is an int byte length followed by UTF-8 bytes, and the optional decimals, as
+ * {@link BigDecimal#toString()}, only follow cents of {@link CompactOrder#NOT_CENTS}, so records of orders in cents
+ * are unchanged. Also the format orders are handed over between cluster nodes in.
+ */
+public final class OrderRecordCodec {
+    /** Bytes of an item without its strings. */
+    private static final int ITEM_BYTES = 2 * Long.BYTES + 2 * Integer.BYTES;
+
+    private OrderRecordCodec() {
+    }
+
+    public static byte[] encode(CompactOrder order) {
+        byte[] customer = order.getCustomer().getBytes(StandardCharsets.UTF_8);
+        int itemCount = order.getItemCount();
+        byte[][] names = new byte[itemCount][];
+        byte[] amount = exactOf(order.getAmountCents(), order.getAmount());
+        int size = 3 * Long.BYTES + Integer.BYTES + customer.length + Integer.BYTES + sizeOf(amount);
+        byte[][] unitPrices = null;
+        for (int i = 0; i < itemCount; i++) {
+            names[i] = order.getName(i).getBytes(StandardCharsets.UTF_8);
+            size += 2 * Long.BYTES + 2 * Integer.BYTES + names[i].length;
+            if (order.getUnitPriceCents(i) == CompactOrder.NOT_CENTS) {
+                if (unitPrices == null) {
+                    unitPrices = new byte[itemCount][];
+                }
+                unitPrices[i] = exactOf(CompactOrder.NOT_CENTS, order.getUnitPrice(i));
+                size += sizeOf(unitPrices[i]);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(order.getId());
+        buffer.putLong(order.getCreatedAtMillis());
+        buffer.putLong(order.getAmountCents());
+        if (amount != null) {
+            putString(buffer, amount);
+        }
+        putString(buffer, customer);
+        buffer.putInt(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            buffer.putLong(order.getProductId(i));
+            buffer.putLong(order.getUnitPriceCents(i));
+            buffer.putInt(order.getQuantity(i));
+            putString(buffer, names[i]);
+            if (unitPrices != null && unitPrices[i] != null) {
+                putString(buffer, unitPrices[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes the record at the position of {@code buffer}. Every length and count is checked against the bytes
+     * left before anything is allocated, as records also arrive from other nodes.
+     *
+     * @throws IllegalArgumentException if {@code buffer} doesn't hold a whole, well-formed record
+     */
+    public static CompactOrder decode(ByteBuffer buffer) {
+        require(buffer, 3 * Long.BYTES);
+        long id = buffer.getLong();
+        long createdAtMillis = buffer.getLong();
+        long amountCents = buffer.getLong();
+        BigDecimal amount = amountCents == CompactOrder.NOT_CENTS ? new BigDecimal(getString(buffer)) : null;
+        String customer = getString(buffer);
+        require(buffer, Integer.BYTES);
+        int itemCount = buffer.getInt();
+        if (itemCount < 0 || itemCount > buffer.remaining() / ITEM_BYTES) {
+            throw new IllegalArgumentException("Malformed order record: " + itemCount + " items in "
+                    + buffer.remaining() + " bytes");
+        }
+        CompactOrder.Builder builder = CompactOrder.builder(id, customer, amountCents, createdAtMillis, itemCount);
+        if (amount != null) {
+            builder.amount(amount);
+        }
+        for (int i = 0; i < itemCount; i++) {
+            require(buffer, ITEM_BYTES);
+            long productId = buffer.getLong();
+            long unitPriceCents = buffer.getLong();
+            int quantity = buffer.getInt();
+            String name = getString(buffer);
+            if (unitPriceCents == CompactOrder.NOT_CENTS) {
+                builder.addItem(productId, name, quantity, new BigDecimal(getString(buffer)));
+            } else {
+                builder.addItem(productId, name, quantity, unitPriceCents);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * The decimal written after {@code cents}, null unless they are {@link CompactOrder#NOT_CENTS}.
+     */
+    private static byte[] exactOf(long cents, BigDecimal value) {
+        return cents == CompactOrder.NOT_CENTS ? value.toString().getBytes(StandardCharsets.US_ASCII) : null;
+    }
+
+    private static int sizeOf(byte[] value) {
+        return value == null ? 0 : Integer.BYTES + value.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        require(buffer, Integer.BYTES);
+        int length = buffer.getInt();
+        require(buffer, length);
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static void require(ByteBuffer buffer, int bytes) {
+        if (bytes < 0 || bytes > buffer.remaining()) {
+            throw new IllegalArgumentException("Malformed order record: " + bytes + " bytes expected, "
+                    + buffer.remaining() + " left");
+        }
+    }
+}
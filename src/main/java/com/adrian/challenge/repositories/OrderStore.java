@@ -0,0 +1,49 @@
+package com.adrian.challenge.repositories;
+
+import com.adrian.challenge.models.Order;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage for processed orders.
+ */
+public interface OrderStore {
+
+    void save(Order order);
+
+    /**
+     * Saves an order that is already in compact form, keeping its creation time.
+     */
+    void save(CompactOrder order);
+
+    /**
+     * Saves a batch of orders in compact form, as if one by one but paying any per-write cost once per batch.
+     */
+    default void saveAll(List<CompactOrder> orders) {
+        orders.forEach(this::save);
+    }
+
+    Optional<Order> findById(long id);
+
+    List<Order> findByCustomer(String customer);
+
+    /**
+     * Snapshot of every stored order. Prefer the targeted lookups, this copies the whole store.
+     */
+    List<Order> findAll();
+
+    /**
+     * Orders with an ID greater than {@code afterId} in ascending ID order, read lazily from the live store as the
+     * stream is consumed. Orders saved or evicted meanwhile may or may not be seen.
+     */
+    Stream<Order> findAfter(long afterId);
+
+    /**
+     * Same as {@link #findAfter}, in compact form and with their creation time, for copying orders elsewhere.
+     */
+    Stream<CompactOrder> findCompactAfter(long afterId);
+
+    long size();
+}
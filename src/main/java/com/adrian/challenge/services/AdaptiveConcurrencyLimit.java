@@ -0,0 +1,141 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.configs.OrderProperties;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that follows the latency of the work it admits, in the style of a gradient limiter.
+ * <p>
+ * Latencies are averaged over windows of at least {@code windowSize} samples and at least as many as the limit, about
+ * one latency's worth of work, so a noisy latency such as the 100-500 ms of the simulated business logic doesn't move
+ * the limit on every sample. The lowest window average seen stands for the latency without queueing, and each window
+ * moves the limit towards {@code limit * gradient + sqrt(limit)}, where the gradient is
+ * {@code tolerance * baseline / average} capped at 1: while the latency stays within the tolerance the limit keeps
+ * growing by its square root, and once orders queue behind each other the latency rises and the limit shrinks in
+ * proportion.
+ * <p>
+ * Under steady load there is always some queueing, so the baseline would never be seen again, and simply forgetting it
+ * would let the latency of a queue become the new baseline. When no window has matched the baseline for
+ * {@code baselineWindows} windows, the limit is probed instead: it is halved window after window for as long as that
+ * lowers the latency, that is until nothing queues, and the latency then measured becomes the baseline before the limit
+ * is restored. This also follows a real change of the latency of the work itself.
+ * <p>
+ * The limit doesn't grow while less than half of it is in use, so an idle period doesn't leave it far above what the
+ * last load needed.
+ */
+public class AdaptiveConcurrencyLimit {
+    /** A probe keeps halving the limit while each halving lowers the latency by more than this factor. */
+    private static final double PROBE_DRAINING = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSize;
+    private final int baselineWindows;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long windowSum;
+    private int windowCount;
+    private int windowMaxInFlight;
+    private long baseline;
+    /** Windows since the baseline was last seen. */
+    private int baselineAge;
+    /** Average latency of the previous window of the current baseline probe, 0 when not probing. */
+    private long probeAverage;
+    /** Whether the current window of the probe is the first one since the limit was halved. */
+    private boolean probeSettling;
+    private double estimate;
+    private volatile int limit;
+
+    public AdaptiveConcurrencyLimit(OrderProperties.AdaptiveLimit config, int maxLimit) {
+        if (config.getMinLimit() < 1 || config.getMinLimit() > maxLimit) {
+            throw new IllegalArgumentException("Minimum limit must be between 1 and " + maxLimit + ", got " + config.getMinLimit());
+        }
+        if (config.getWindowSize() < 1 || config.getBaselineWindows() < 1) {
+            throw new IllegalArgumentException("Window size and baseline windows must be at least 1");
+        }
+        this.minLimit = config.getMinLimit();
+        this.maxLimit = maxLimit;
+        this.windowSize = config.getWindowSize();
+        this.baselineWindows = config.getBaselineWindows();
+        this.tolerance = config.getTolerance();
+        this.smoothing = config.getSmoothing();
+        this.estimate = Math.max(minLimit, Math.min(maxLimit, config.getInitialLimit()));
+        this.limit = (int) estimate;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Records the latency of one completed unit of work.
+     *
+     * @param inFlight units in flight when it completed, itself included
+     */
+    public void onSample(long latencyNanos, int inFlight) {
+        lock.lock();
+        try {
+            windowSum += latencyNanos;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+            if (++windowCount < Math.max(windowSize, (int) estimate)) {
+                return;
+            }
+            long average = Math.max(1, windowSum / windowCount);
+            boolean limitInUse = windowMaxInFlight * 2 >= estimate;
+            windowSum = 0;
+            windowCount = 0;
+            windowMaxInFlight = 0;
+            adjust(average, limitInUse);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(long average, boolean limitInUse) {
+        if (probeAverage > 0) {
+            probe(average);
+            return;
+        }
+        if (baseline == 0 || average <= baseline) {
+            baseline = average;
+            baselineAge = 0;
+        } else if (++baselineAge >= baselineWindows) {
+            probeAverage = average;
+            probeSettling = true;
+            limit = Math.max(minLimit, limit / 2);
+            return;
+        }
+
+        double gradient = Math.max(0.5, tolerance * baseline / average);
+        double target = gradient < 1 ? estimate * gradient : estimate + Math.sqrt(estimate);
+        if (target > estimate && !limitInUse) {
+            return;
+        }
+        estimate = Math.max(minLimit, Math.min(maxLimit, estimate * (1 - smoothing) + target * smoothing));
+        limit = (int) estimate;
+    }
+
+    /**
+     * Keeps halving the limit while that still lowers the latency, judged on the second window after each halving, then
+     * takes the latency as the new baseline and restores the limit.
+     */
+    private void probe(long average) {
+        if (probeSettling) {
+            probeSettling = false; // mostly orders admitted before the limit was lowered
+            return;
+        }
+        if (average < probeAverage * PROBE_DRAINING && limit > minLimit) {
+            probeAverage = average;
+            probeSettling = true;
+            limit = Math.max(minLimit, limit / 2);
+            return;
+        }
+        baseline = Math.min(average, probeAverage);
+        baselineAge = 0;
+        probeAverage = 0;
+        limit = (int) estimate;
+    }
+}
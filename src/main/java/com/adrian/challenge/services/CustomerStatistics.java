@@ -0,0 +1,79 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.models.CustomerStats;
+import com.adrian.challenge.repositories.CompactOrder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running aggregates of the processed orders of every customer, updated as each order completes so that reading
+ * them is a single map lookup instead of a pass over every stored order.
+ * <p>
+ * The counters are striped ({@link LongAdder}, {@link LongAccumulator}), so orders of the same customer completing
+ * on many threads at once don't contend on one memory location. A snapshot reads each counter separately: while
+ * orders are completing its values may be from slightly different instants, each of them exact.
+ * Aggregates cover the orders completed since startup, plus those recovered from the journal when the store has
+ * one, and are not reduced when the store evicts orders.
+ * <p>
+ * The map holds every customer ever seen and is not bounded, dropping a customer would make its stats wrong rather
+ * than missing. An entry takes about 230 bytes plus the customer name, so a million customers need some 300 MB of
+ * heap; {@code order.customers.tracked} shows how many there are.
+ */
+@Component
+public class CustomerStatistics {
+    private final Map<String, Aggregates> customers = new ConcurrentHashMap<>();
+
+    public CustomerStatistics(MeterRegistry meterRegistry) {
+        Gauge.builder("order.customers.tracked", customers, Map::size)
+                .description("Customers with running order aggregates")
+                .register(meterRegistry);
+    }
+
+    public void record(CompactOrder order) {
+        Aggregates aggregates = customers.get(order.getCustomer());
+        if (aggregates == null) {
+            aggregates = customers.computeIfAbsent(order.getCustomer(), customer -> new Aggregates());
+        }
+        aggregates.orders.increment();
+        if (order.getAmountCents() != CompactOrder.NOT_CENTS) {
+            aggregates.amountCents.add(order.getAmountCents());
+        } else {
+            aggregates.exactAmount.accumulateAndGet(order.getAmount(), BigDecimal::add);
+        }
+        aggregates.items.add(order.getItemCount());
+        aggregates.lastOrderMillis.accumulate(order.getCreatedAtMillis());
+    }
+
+    public Optional<CustomerStats> find(String customer) {
+        Aggregates aggregates = customers.get(customer);
+        if (aggregates == null) {
+            return Optional.empty();
+        }
+        return Optional.of(CustomerStats.builder()
+                .customer(customer)
+                .orderCount(aggregates.orders.sum())
+                .totalAmount(BigDecimal.valueOf(aggregates.amountCents.sum(), 2).add(aggregates.exactAmount.get()))
+                .itemCount(aggregates.items.sum())
+                .lastOrderAt(Instant.ofEpochMilli(aggregates.lastOrderMillis.get()))
+                .build());
+    }
+
+    private static final class Aggregates {
+        private final LongAdder orders = new LongAdder();
+        private final LongAdder amountCents = new LongAdder();
+        /** Amounts that aren't in cents, which are rare enough to share one location. */
+        private final AtomicReference<BigDecimal> exactAmount = new AtomicReference<>(BigDecimal.ZERO);
+        private final LongAdder items = new LongAdder();
+        private final LongAccumulator lastOrderMillis = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    }
+}
@@ -0,0 +1,214 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.exceptions.OrderRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of orders in flight. Orders over the budget wait (without blocking the caller)
+ * for a free slot up to the configured timeout and are shed with {@link OrderRejectedException} after that,
+ * or immediately when the waiting queue is full.
+ * <p>
+ * The budget is {@code orders.admission.max-in-flight}, or with {@code orders.admission.adaptive.enabled} an
+ * {@link AdaptiveConcurrencyLimit} up to it, fed with the latency of the business stage through
+ * {@link #recordLatency}. A lowered limit takes effect as orders complete: slots over it are not handed over.
+ */
+@Component
+public class OrderAdmissionControl {
+    private static final CompletableFuture<Void> ADMITTED = CompletableFuture.completedFuture(null);
+
+    private final OrderProperties.Admission config;
+    /** Null unless the limit is adaptive. */
+    private final AdaptiveConcurrencyLimit adaptiveLimit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int inFlight;
+
+    private final Counter admittedCounter;
+    private final Counter queuedCounter;
+    private final Counter shedCounter;
+
+    public OrderAdmissionControl(OrderProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getAdmission();
+        this.adaptiveLimit = config.getAdaptive().isEnabled()
+                ? new AdaptiveConcurrencyLimit(config.getAdaptive(), config.getMaxInFlight())
+                : null;
+        this.admittedCounter = admissionCounter(meterRegistry, "admitted");
+        this.queuedCounter = admissionCounter(meterRegistry, "queued");
+        this.shedCounter = admissionCounter(meterRegistry, "shed");
+        Gauge.builder("order.admission.in.flight", this, OrderAdmissionControl::getInFlight)
+                .description("Orders currently admitted for processing")
+                .register(meterRegistry);
+        Gauge.builder("order.admission.waiting", this, OrderAdmissionControl::getWaiting)
+                .description("Orders waiting for an in-flight slot")
+                .register(meterRegistry);
+        Gauge.builder("order.admission.limit", this, OrderAdmissionControl::getLimit)
+                .description("Orders that may currently be in flight, adjusted to the latency when adaptive")
+                .register(meterRegistry);
+    }
+
+    private static Counter admissionCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("order.admission.requests")
+                .description("Orders that went through admission control, by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code task} once an in-flight slot is available and keeps the slot until the returned future completes.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+        return acquire().thenCompose(ignored -> {
+            CompletableFuture<T> result;
+            try {
+                result = task.get();
+            } catch (RejectedExecutionException e) {
+                release();
+                shedCounter.increment();
+                throw rejection("Order executor is saturated");
+            } catch (RuntimeException e) {
+                release();
+                throw e;
+            }
+            return result.whenComplete((value, ex) -> release());
+        });
+    }
+
+    private CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (inFlight < getLimit()) {
+                inFlight++;
+                admittedCounter.increment();
+                return ADMITTED;
+            }
+            if (waiters.size() >= config.getMaxQueued()) {
+                shedCounter.increment();
+                return CompletableFuture.failedFuture(rejection("Too many orders in flight"));
+            }
+            waiters.addLast(waiter);
+            queuedCounter.increment();
+        } finally {
+            lock.unlock();
+        }
+
+        CompletableFuture.delayedExecutor(config.getQueueWaitTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> expire(waiter));
+        return waiter;
+    }
+
+    private void expire(CompletableFuture<Void> waiter) {
+        // Dequeue before failing the waiter, so whoever observes the rejection no longer sees it waiting
+        boolean expired;
+        lock.lock();
+        try {
+            expired = waiters.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+        if (expired) {
+            shedCounter.increment();
+            waiter.completeExceptionally(rejection("Timed out waiting for an in-flight slot"));
+        }
+    }
+
+    private void release() {
+        while (true) {
+            CompletableFuture<Void> next;
+            lock.lock();
+            try {
+                next = inFlight <= getLimit() ? waiters.pollFirst() : null;
+                if (next == null) {
+                    inFlight--;
+                    break;
+                }
+            } finally {
+                lock.unlock();
+            }
+            // Hand the slot over outside the lock, the waiter runs its task synchronously
+            if (next.complete(null)) {
+                admittedCounter.increment();
+                return;
+            }
+        }
+        admitWaiters();
+    }
+
+    /**
+     * Admits waiting orders into the slots a raised limit has freed.
+     */
+    private void admitWaiters() {
+        while (true) {
+            CompletableFuture<Void> next;
+            lock.lock();
+            try {
+                next = inFlight < getLimit() ? waiters.pollFirst() : null;
+                if (next == null) {
+                    return;
+                }
+                inFlight++;
+            } finally {
+                lock.unlock();
+            }
+            if (next.complete(null)) {
+                admittedCounter.increment();
+            } else {
+                lock.lock();
+                try {
+                    inFlight--;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports how long an admitted order took in the business stage, waiting included, which the adaptive limit
+     * follows. Ignored with a fixed limit.
+     */
+    public void recordLatency(long latencyNanos) {
+        if (adaptiveLimit != null) {
+            adaptiveLimit.onSample(latencyNanos, getInFlight());
+        }
+    }
+
+    private OrderRejectedException rejection(String reason) {
+        return new OrderRejectedException(reason, config.getRetryAfter());
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return adaptiveLimit != null ? adaptiveLimit.getLimit() : config.getMaxInFlight();
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.cluster.OrderRouter;
+import com.adrian.challenge.exceptions.OrderRejectedException;
+import com.adrian.challenge.models.BatchOrderResult;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.models.ProcessedOrder;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Fans a batch of orders out over {@link OrderRouter}, so each order is processed by the node owning its
+ * customer, and reports each result as soon as its order completes.
+ * A failing order only produces an error result, it never fails the rest of the batch.
+ */
+@Service
+public class OrderBatchProcessor {
+    private final OrderRouter orderRouter;
+
+    private final Validator beanValidator;
+
+    public OrderBatchProcessor(OrderRouter orderRouter, Validator beanValidator) {
+        this.orderRouter = orderRouter;
+        this.beanValidator = beanValidator;
+    }
+
+    /**
+     * Submits every order of {@code orders} as it is read and calls {@code onResult} once per order, from the
+     * thread that completed it. The returned future completes after the last result has been reported.
+     */
+    public CompletableFuture<Void> process(Iterator<Order> orders, Consumer<BatchOrderResult> onResult) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        int index = 0;
+        while (true) {
+            Order order;
+            try {
+                if (!orders.hasNext()) {
+                    break;
+                }
+                order = orders.next();
+            } catch (RuntimeException e) {
+                // The rest of the body can't be read reliably, report what was read so far and stop
+                onResult.accept(BatchOrderResult.error(index, "Malformed order: " + e.getMessage()));
+                break;
+            }
+            pending.add(processOne(index++, order).thenAccept(onResult));
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Validates and processes the order at position {@code index} of a batch. The returned future never fails,
+     * failures are reported as an error or rejected result.
+     */
+    public CompletableFuture<BatchOrderResult> processOne(int index, Order order) {
+        Set<ConstraintViolation<Order>> violations = beanValidator.validate(order);
+        if (!violations.isEmpty()) {
+            return CompletableFuture.completedFuture(BatchOrderResult.error(index, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "))));
+        }
+
+        CompletableFuture<ProcessedOrder> processing;
+        try {
+            processing = orderRouter.processOrder(order, null, null, false);
+        } catch (RuntimeException e) {
+            processing = CompletableFuture.failedFuture(e);
+        }
+        return processing.handle((processed, ex) -> {
+            if (ex == null) {
+                return BatchOrderResult.builder()
+                        .index(index)
+                        .status(BatchOrderResult.SUCCESS)
+                        .orderId(processed.getId())
+                        .message(processed.getMessage())
+                        .build();
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof OrderRejectedException) {
+                return BatchOrderResult.builder()
+                        .index(index)
+                        .status(BatchOrderResult.REJECTED)
+                        .message(cause.getMessage())
+                        .build();
+            }
+            return BatchOrderResult.error(index, cause.getMessage());
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.configs.OrderProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates order IDs laid out as {@code timestamp(41) | node(10) | sequence(12)}, where the timestamp is in
+ * milliseconds since {@link #EPOCH_MILLIS}. IDs are unique across nodes with distinct node IDs and strictly
+ * increasing on each node, even if the wall clock steps back: the generator keeps counting from the last
+ * timestamp it issued, borrowing the next millisecond when a sequence is exhausted.
+ * <p>
+ * {@link #nextId()} is a single CAS loop on one {@code long} and allocates nothing.
+ */
+@Component
+public class OrderIdGenerator {
+    /** 2025-01-01T00:00:00Z, leaves room for IDs until 2094. */
+    public static final long EPOCH_MILLIS = 1_735_689_600_000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+
+    /** Last issued {@code timestamp << SEQUENCE_BITS | sequence}. */
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public OrderIdGenerator(OrderProperties properties) {
+        this(properties.getId().getNodeId(), System::currentTimeMillis);
+    }
+
+    public OrderIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ", got " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        while (true) {
+            long last = state.get();
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            // A new millisecond restarts the sequence, otherwise count on (overflowing into the next millisecond)
+            long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if (state.compareAndSet(last, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                        | nodeBits
+                        | (next & ((1L << SEQUENCE_BITS) - 1));
+            }
+        }
+    }
+
+    public static int nodeIdOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+}
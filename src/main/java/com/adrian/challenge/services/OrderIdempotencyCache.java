@@ -0,0 +1,197 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.exceptions.CustomBadRequestException;
+import com.adrian.challenge.exceptions.IdempotencyKeyConflictException;
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.models.ProcessedOrder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of orders sent with an {@code Idempotency-Key}, so a client retry gets the original result
+ * instead of processing the order again.
+ * <p>
+ * A retry of a completed order replays its result; a retry arriving while the first attempt is still running gets
+ * the same in-flight future. Only successful results are kept: a failed attempt is forgotten so the retry runs it
+ * again. Keys are evicted oldest first once the cache exceeds its maximum size or a key outlives its TTL.
+ * <p>
+ * A retry is recognized by the SHA-256 digest of its order, amounts compared by value, so {@code 10.0} and
+ * {@code 10.00} are the same order and a different order can't pass for the original.
+ */
+@Component
+public class OrderIdempotencyCache {
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final long maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter coalescedCounter;
+
+    @Autowired
+    public OrderIdempotencyCache(OrderProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getIdempotency(), meterRegistry, Clock.systemUTC());
+    }
+
+    public OrderIdempotencyCache(OrderProperties.Idempotency config, MeterRegistry meterRegistry, Clock clock) {
+        this.maxSize = config.getMaxSize();
+        this.ttlMillis = config.getTtl().toMillis();
+        this.clock = clock;
+        this.hitCounter = requestCounter(meterRegistry, "hit");
+        this.missCounter = requestCounter(meterRegistry, "miss");
+        this.coalescedCounter = requestCounter(meterRegistry, "coalesced");
+        Gauge.builder("order.idempotency.size", entries, Map::size)
+                .description("Idempotency keys currently remembered")
+                .register(meterRegistry);
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("order.idempotency.requests")
+                .description("Orders sent with an Idempotency-Key, by whether a previous result was reused")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the result of the order first sent with {@code key}, running {@code processing} only if there is none.
+     *
+     * @throws IdempotencyKeyConflictException if {@code key} was first sent with a different order
+     */
+    public CompletableFuture<ProcessedOrder> process(String key, Order order, Supplier<CompletableFuture<ProcessedOrder>> processing) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new CustomBadRequestException("Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        long now = clock.millis();
+        // Fingerprint the order before processing assigns it an ID
+        Entry created = new Entry(key, fingerprint(order), now);
+        Entry existing;
+        while ((existing = entries.putIfAbsent(key, created)) != null) {
+            if (!isExpired(existing, now)) {
+                if (!MessageDigest.isEqual(existing.fingerprint, created.fingerprint)) {
+                    throw new IdempotencyKeyConflictException(
+                            "Idempotency-Key " + key + " was already used for a different order");
+                }
+                (existing.result.isDone() ? hitCounter : coalescedCounter).increment();
+                return existing.result.copy();
+            }
+            entries.remove(key, existing);
+        }
+        missCounter.increment();
+        insertionOrder.add(created);
+        evict(now);
+
+        CompletableFuture<ProcessedOrder> execution;
+        try {
+            execution = processing.get();
+        } catch (RuntimeException e) {
+            execution = CompletableFuture.failedFuture(e);
+        }
+        execution.whenComplete((result, ex) -> {
+            if (ex != null) {
+                entries.remove(key, created); // forget it before anyone sees the failure, so retries run again
+                created.result.completeExceptionally(ex);
+            } else {
+                created.result.complete(result);
+            }
+        });
+        return created.result.copy();
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops keys from the head of the insertion queue while the cache is over capacity or they have expired.
+     * In-flight keys are evicted like any other, a retry after that runs the order again.
+     */
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null) {
+            if (entries.size() <= maxSize && !isExpired(oldest, now)) {
+                return;
+            }
+            if (insertionOrder.remove(oldest)) {
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    /**
+     * SHA-256 of the customer, amount and items of {@code order}, each value length-prefixed and every amount without its
+     * trailing zeros. The ID is left out, processing assigns it.
+     */
+    private static byte[] fingerprint(Order order) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required on every Java platform", e);
+        }
+        update(digest, order.getCustomer());
+        update(digest, order.getAmount());
+        if (order.getItems() != null) {
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(order.getItems().size()).array());
+            for (Item item : order.getItems()) {
+                update(digest, item.getProductId() == null ? null : item.getProductId().toString());
+                update(digest, item.getName());
+                update(digest, Integer.toString(item.getQuantity()));
+                update(digest, item.getUnitPrice());
+            }
+        }
+        return digest.digest();
+    }
+
+    private static void update(MessageDigest digest, BigDecimal amount) {
+        update(digest, amount == null ? null : amount.stripTrailingZeros().toString());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(-1).array());
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAtMillis > ttlMillis;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final byte[] fingerprint;
+        private final long createdAtMillis;
+        private final CompletableFuture<ProcessedOrder> result = new CompletableFuture<>();
+
+        private Entry(String key, byte[] fingerprint, long createdAtMillis) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.exceptions.InvalidOrderAmountException;
+import com.adrian.challenge.exceptions.OrderRejectedException;
+import com.adrian.challenge.exceptions.OrderTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order processing meters. Every meter is registered up front and tagged only with bounded values
+ * (stage, outcome and error type), so the number of meters never grows with traffic. Stage timers are only
+ * registered for the errors each stage can end with, every one of them exports a full percentile histogram.
+ */
+@Component
+public class OrderMetrics {
+    public enum Stage { VALIDATION, BUSINESS, STORAGE }
+
+    public enum ErrorType { NONE, VALIDATION, REJECTED, TIMEOUT, CANCELLED, INTERRUPTED, INTERNAL }
+
+    /** Errors each stage can end with, besides {@link ErrorType#NONE}; any other is recorded as internal. */
+    private static final Map<Stage, Set<ErrorType>> STAGE_ERRORS = Map.of(
+            Stage.VALIDATION, EnumSet.of(ErrorType.VALIDATION, ErrorType.INTERNAL),
+            Stage.BUSINESS, EnumSet.of(ErrorType.INTERRUPTED, ErrorType.INTERNAL),
+            Stage.STORAGE, EnumSet.of(ErrorType.INTERNAL));
+
+    private final Map<Stage, Map<ErrorType, Timer>> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<ErrorType, Timer> processingTimers = new EnumMap<>(ErrorType.class);
+
+    private final Counter successCounter;
+    private final Counter validationFailureCounter;
+    private final Counter rejectedCounter;
+    private final Counter timeoutCounter;
+    private final Counter cancelledCounter;
+    private final Counter errorCounter;
+    private final Map<Stage, Counter> abandonedCounters = new EnumMap<>(Stage.class);
+    private final Counter interruptedCounter;
+
+    public OrderMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            Map<ErrorType, Timer> timers = new EnumMap<>(ErrorType.class);
+            Set<ErrorType> errors = EnumSet.of(ErrorType.NONE);
+            errors.addAll(STAGE_ERRORS.get(stage));
+            for (ErrorType error : errors) {
+                timers.put(error, Timer.builder("order.stage.duration")
+                        .description("Time spent in each order processing stage")
+                        .tag("stage", tagValue(stage))
+                        .tag("outcome", outcome(error))
+                        .tag("error", tagValue(error))
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+            stageTimers.put(stage, timers);
+        }
+        for (ErrorType error : ErrorType.values()) {
+            processingTimers.put(error, Timer.builder("order.processing.duration")
+                    .description("Tiempo de procesamiento de pedidos")
+                    .tag("outcome", outcome(error))
+                    .tag("error", tagValue(error))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        successCounter = resultCounter(meterRegistry, "success");
+        validationFailureCounter = resultCounter(meterRegistry, "validation_failure");
+        rejectedCounter = resultCounter(meterRegistry, "rejected");
+        timeoutCounter = resultCounter(meterRegistry, "timeout");
+        cancelledCounter = resultCounter(meterRegistry, "cancelled");
+        errorCounter = resultCounter(meterRegistry, "error");
+        for (Stage stage : Stage.values()) {
+            abandonedCounters.put(stage, Counter.builder("order.abandoned")
+                    .description("Timed out or cancelled orders dropped from a stage queue before the stage ran")
+                    .tag("stage", tagValue(stage))
+                    .register(meterRegistry));
+        }
+        interruptedCounter = Counter.builder("order.interrupted")
+                .description("Timed out or cancelled orders whose business logic was interrupted while running")
+                .register(meterRegistry);
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("order.processed")
+                .description("Orders that finished processing, by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs one stage of an order, recording its duration and outcome. Failures are rethrown unchanged.
+     */
+    public void recordStage(Stage stage, Runnable action) {
+        long start = System.nanoTime();
+        ErrorType error = ErrorType.NONE;
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            error = classify(e);
+            throw e;
+        } finally {
+            Map<ErrorType, Timer> timers = stageTimers.get(stage);
+            timers.getOrDefault(error, timers.get(ErrorType.INTERNAL)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records the end-to-end result of an order started at {@code startNanos}; {@code failure} is null on success.
+     */
+    public void recordOrder(long startNanos, Throwable failure) {
+        ErrorType error = failure == null ? ErrorType.NONE : classify(failure);
+        processingTimers.get(error).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        switch (error) {
+            case NONE -> successCounter.increment();
+            case VALIDATION -> validationFailureCounter.increment();
+            case REJECTED -> rejectedCounter.increment();
+            case TIMEOUT -> timeoutCounter.increment();
+            case CANCELLED -> cancelledCounter.increment();
+            default -> errorCounter.increment();
+        }
+    }
+
+    /**
+     * Records an order that timed out or was cancelled while waiting for {@code stage}, which then skipped it.
+     */
+    public void recordAbandoned(Stage stage) {
+        abandonedCounters.get(stage).increment();
+    }
+
+    /**
+     * Records an order that timed out or was cancelled while its business logic was running.
+     */
+    public void recordInterrupted() {
+        interruptedCounter.increment();
+    }
+
+    /**
+     * {@code success}, or the error tag {@code failure} is recorded with.
+     */
+    static String outcomeOf(Throwable failure) {
+        return failure == null ? "success" : tagValue(classify(failure));
+    }
+
+    static ErrorType classify(Throwable failure) {
+        Throwable cause = failure;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof InvalidOrderAmountException) {
+            return ErrorType.VALIDATION;
+        }
+        if (cause instanceof OrderRejectedException || cause instanceof RejectedExecutionException) {
+            return ErrorType.REJECTED;
+        }
+        if (cause instanceof OrderTimeoutException) {
+            return ErrorType.TIMEOUT;
+        }
+        if (cause instanceof CancellationException) {
+            return ErrorType.CANCELLED;
+        }
+        if (cause instanceof InterruptedException || cause.getCause() instanceof InterruptedException) {
+            return ErrorType.INTERRUPTED;
+        }
+        return ErrorType.INTERNAL;
+    }
+
+    private static String outcome(ErrorType error) {
+        return error == ErrorType.NONE ? "success" : "failure";
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,79 +1,517 @@
 package com.adrian.challenge.services;
 
+import com.adrian.challenge.configs.AsyncConfig;
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.exceptions.OrderTimeoutException;
+import com.adrian.challenge.exceptions.PartialSaveException;
 import com.adrian.challenge.models.Order;
+import com.adrian.challenge.models.OrderPage;
+import com.adrian.challenge.models.ProcessedOrder;
+import com.adrian.challenge.repositories.CompactOrder;
+import com.adrian.challenge.repositories.OrderStore;
 import com.adrian.challenge.validators.OrderValidator;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Validates orders on the calling thread and processes the valid ones through a staged pipeline: business logic
+ * and storage run as separate {@link PipelineStage}s connected by bounded lock-free ring buffers, each with its own
+ * parallelism and meters, configured by {@code orders.pipeline.*}.
+ * <p>
+ * An invalid order fails before admission, so it never takes an in-flight slot, a queue slot or a worker thread
+ * and a flood of them doesn't slow down valid orders. The business stage runs on the order executor and the
+ * storage stage on a thread of its own, writing orders to the store in micro-batches of whatever accumulated
+ * while the previous batch was being written. A full business stage rejects new orders, a full storage stage
+ * holds back the business stage.
+ * <p>
+ * With {@code orders.pipeline.lanes.enabled} orders are partitioned by customer instead: each goes to the
+ * {@link PartitionedStage} lane its customer hashes to and runs both steps there, so the orders of a
+ * customer are processed one at a time and complete in the order they were admitted, while different customers
+ * run in parallel on the order executor.
+ * <p>
+ * Every order has a deadline, admission included. An order past it, or cancelled by its caller, fails at once:
+ * the stages it hasn't reached skip it and its business logic is interrupted if it is running, so no thread keeps
+ * working for a client that is no longer waiting. An order can still be stored if its deadline passes while its
+ * batch is being written.
+ * <p>
+ * Each order carries an {@link OrderTrace} of when it finished every step, queue waits included. A sample of them
+ * emit Flight Recorder events as they go, and the slowest ones are kept with their breakdown in
+ * {@link SlowOrderLog}.
+ */
 @Service
-public class OrderService {
-    private final Map<Long, Order> processedOrders = new ConcurrentHashMap<>();
-    private final ExecutorService executorService;
+public class OrderService implements AutoCloseable {
+    private final OrderStore orderStore;
 
-    private final MeterRegistry meterRegistry;
+    private final OrderIdGenerator idGenerator;
+
+    private final OrderMetrics metrics;
 
     private final OrderValidator validator;
 
-    public OrderService(MeterRegistry meterRegistry, OrderValidator validator) {
-        this.meterRegistry = meterRegistry;
+    private final OrderAdmissionControl admissionControl;
+
+    private final CustomerStatistics customerStatistics;
+
+    private final SlowOrderLog slowOrders;
+
+    private final long minLatencyMillis;
+    private final long maxLatencyMillis;
+    private final Duration shutdownTimeout;
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+    private final double traceSampleRate;
+    private final Clock clock = Clock.systemUTC();
+
+    private final ExecutorService storageExecutor;
+    /** Fails orders that reach their deadline. */
+    private final ScheduledThreadPoolExecutor deadlines;
+    private final PipelineStage<OrderTask> business;
+    private final PipelineStage<OrderTask> storage;
+    /** Null unless orders are partitioned by customer. */
+    private final PartitionedStage<OrderTask> lanes;
+
+    public OrderService(OrderMetrics metrics, OrderValidator validator,
+                        @Qualifier(AsyncConfig.ORDER_EXECUTOR) AsyncTaskExecutor executorService,
+                        OrderAdmissionControl admissionControl, OrderStore orderStore, OrderIdGenerator idGenerator,
+                        CustomerStatistics customerStatistics, SlowOrderLog slowOrders, OrderProperties properties,
+                        MeterRegistry meterRegistry) {
+        this.metrics = metrics;
         this.validator = validator;
-        this.executorService = new ThreadPoolExecutor(
-                100, // core threads
-                300, // max threads
-                30L, TimeUnit.SECONDS, // keep alive time
-                new LinkedBlockingQueue<>(500) // work queue
-        );
+        this.admissionControl = admissionControl;
+        this.orderStore = orderStore;
+        this.idGenerator = idGenerator;
+        this.customerStatistics = customerStatistics;
+        this.slowOrders = slowOrders;
+        this.minLatencyMillis = properties.getProcessing().getMinLatency().toMillis();
+        this.maxLatencyMillis = Math.max(minLatencyMillis, properties.getProcessing().getMaxLatency().toMillis());
+        this.shutdownTimeout = properties.getExecutor().getShutdownTimeout();
+        this.defaultTimeout = properties.getProcessing().getDefaultTimeout();
+        this.maxTimeout = properties.getProcessing().getMaxTimeout();
+        this.traceSampleRate = properties.getTracing().getSampleRate();
+
+        OrderProperties.Pipeline pipeline = properties.getPipeline();
+        this.storageExecutor = stageExecutor("OrderStorage-", pipeline.getStorage());
+        CustomizableThreadFactory deadlineThreadFactory = new CustomizableThreadFactory("OrderDeadline-");
+        deadlineThreadFactory.setDaemon(true);
+        this.deadlines = new ScheduledThreadPoolExecutor(1, deadlineThreadFactory);
+        deadlines.setRemoveOnCancelPolicy(true); // most orders complete long before their deadline
+        this.storage = new PipelineStage<>("storage", pipeline.getStorage(), storageExecutor,
+                this::store, OrderService::fail, meterRegistry);
+        this.business = new PipelineStage<>("business", sizedToExecutor(pipeline.getBusiness(), executorService,
+                properties.getExecutor()), executorService,
+                batch -> batch.forEach(this::process), OrderService::fail, meterRegistry);
+        this.lanes = pipeline.getLanes().isEnabled()
+                ? new PartitionedStage<>(pipeline.getLanes(), executorService, this::processInLane, OrderService::fail, meterRegistry)
+                : null;
+    }
+
+    /**
+     * A stage left at parallelism 0 runs as many workers as the order executor takes at once: its maximum threads
+     * plus its queue, or its concurrency limit with virtual threads. A fixed number below that would keep a thread
+     * pool from ever growing past its core size, and one above it would get runs rejected.
+     */
+    static OrderProperties.Stage sizedToExecutor(OrderProperties.Stage config, AsyncTaskExecutor executor,
+                                                 OrderProperties.Executor executorConfig) {
+        if (config.getParallelism() > 0) {
+            return config;
+        }
+        int parallelism = executorConfig.getMaxPoolSize() + executorConfig.getQueueCapacity();
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            parallelism = pool.getMaxPoolSize() + pool.getQueueCapacity();
+        } else if (executor instanceof SimpleAsyncTaskExecutor simple && simple.getConcurrencyLimit() > 0) {
+            parallelism = simple.getConcurrencyLimit();
+        }
+        return new OrderProperties.Stage(parallelism, config.getQueueCapacity(), config.getBatchSize());
+    }
+
+    private static ExecutorService stageExecutor(String threadNamePrefix, OrderProperties.Stage config) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(config.getParallelism(), threadFactory);
     }
 
-    public CompletableFuture<String> processOrder(Order order) {
-        Timer.Sample sample = Timer.start(meterRegistry);
+    public CompletableFuture<ProcessedOrder> processOrder(Order order) {
+        return processOrder(order, null);
+    }
+
+    /**
+     * Processes an order that must complete within {@code timeout}, the default one when null. Past it, or when
+     * the returned future is cancelled, the order fails and its processing is abandoned: it is dropped from the
+     * stage it is waiting for, or its business logic is interrupted if it is running.
+     * <p>
+     * The order is validated first, on the calling thread, and an invalid one is returned already failed with
+     * {@link com.adrian.challenge.exceptions.InvalidOrderAmountException}.
+     */
+    public CompletableFuture<ProcessedOrder> processOrder(Order order, Duration timeout) {
+        OrderTrace trace = new OrderTrace(order.getCustomer(), System.nanoTime(), traceSampleRate);
+        try {
+            metrics.recordStage(OrderMetrics.Stage.VALIDATION, () -> validator.validate(order));
+        } catch (RuntimeException e) {
+            metrics.recordOrder(trace.start(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+        trace.end(OrderTrace.Step.VALIDATION);
+        return submit(business, new OrderTask(order, null, trace), order.getCustomer(), timeout);
+    }
+
+    /**
+     * Processes an order that was already validated item by item while it was read, see
+     * {@link com.adrian.challenge.validators.StreamingOrderReader}.
+     */
+    public CompletableFuture<ProcessedOrder> processOrder(CompactOrder order, Duration timeout) {
+        OrderTrace trace = new OrderTrace(order.getCustomer(), System.nanoTime(), traceSampleRate);
+        trace.end(OrderTrace.Step.VALIDATION);
+        return submit(business, new OrderTask(null, order, trace), order.getCustomer(), timeout);
+    }
+
+    public CompletableFuture<ProcessedOrder> processOrder(CompactOrder order) {
+        return processOrder(order, null);
+    }
+
+    private CompletableFuture<ProcessedOrder> submit(PipelineStage<OrderTask> stage, OrderTask task, String customer,
+                                             Duration timeout) {
+        CompletableFuture<ProcessedOrder> response = new CompletableFuture<>();
+        admissionControl.submit(() -> task.result.isDone() ? task.result : enter(stage, task, customer))
+                .whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        response.complete(result);
+                    } else {
+                        response.completeExceptionally(ex);
+                    }
+                });
+        long timeoutNanos = timeoutNanos(timeout);
+        ScheduledFuture<?> deadline = deadlines.schedule(() -> response.completeExceptionally(new OrderTimeoutException(
+                "Order not processed within " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms")),
+                timeoutNanos, TimeUnit.NANOSECONDS);
+        CompletableFuture<ProcessedOrder> completion = response.whenComplete((result, ex) -> finish(task, deadline, ex));
+        completion.whenComplete((result, ex) -> {
+            // Cancelled by the caller before the order completed, which skips the action above
+            if (ex instanceof CancellationException) {
+                finish(task, deadline, ex);
+            }
+        });
+        return completion;
+    }
+
+    private void finish(OrderTask task, ScheduledFuture<?> deadline, Throwable failure) {
+        long end = System.nanoTime();
+        deadline.cancel(false);
+        if (failure != null) {
+            abandon(task, failure);
+        }
+        metrics.recordOrder(task.trace.start(), failure);
+        CompactOrder compact = task.compact;
+        slowOrders.record(task.trace, end, compact != null ? compact.getId() : 0, OrderMetrics.outcomeOf(failure));
+    }
+
+    private long timeoutNanos(Duration timeout) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            return defaultTimeout.toNanos();
+        }
+        return Math.min(timeout.toNanos(), maxTimeout.toNanos());
+    }
+
+    /**
+     * Stops the processing of an order that timed out or whose caller cancelled it. Failing its result releases its
+     * admission slot and makes every later stage skip it, and its business logic is interrupted if it is running.
+     */
+    private void abandon(OrderTask task, Throwable reason) {
+        Throwable cause = reason instanceof CompletionException && reason.getCause() != null ? reason.getCause() : reason;
+        if (!(cause instanceof OrderTimeoutException || cause instanceof CancellationException)) {
+            return;
+        }
+        if (task.result.completeExceptionally(cause) && task.interrupt()) {
+            metrics.recordInterrupted();
+        }
+    }
+
+    /**
+     * Queues the order in {@code stage}, or in the lane of its customer when partitioned. Throws
+     * {@link RejectedExecutionException}, which admission control turns into a shed order, when that is full.
+     */
+    private CompletableFuture<ProcessedOrder> enter(PipelineStage<OrderTask> stage, OrderTask task, String customer) {
+        task.trace.end(OrderTrace.Step.ADMISSION);
+        boolean queued = lanes != null ? lanes.offer(customer, task) : stage.offer(task);
+        if (!queued) {
+            throw new RejectedExecutionException("Order pipeline is full");
+        }
+        return task.result;
+    }
+
+    private void process(OrderTask task) {
+        try {
+            if (!businessStep(task)) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            fail(task, e);
+            return;
+        }
+        storage.put(task);
+    }
+
+    private void store(List<OrderTask> queued) {
+        List<OrderTask> batch = withoutAbandoned(queued, OrderMetrics.Stage.STORAGE);
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            storeStep(batch);
+        } catch (RuntimeException e) {
+            for (OrderTask task : batch) {
+                if (stored(task, e)) {
+                    succeed(task);
+                } else {
+                    fail(task, e);
+                }
+            }
+            return;
+        }
+        batch.forEach(this::succeed);
+    }
 
-        return CompletableFuture.supplyAsync(() -> {
+    /**
+     * Runs both steps of a batch of orders of one lane, then completes them in the order they were queued
+     * whatever step each one failed at.
+     */
+    private void processInLane(List<OrderTask> queued) {
+        List<OrderTask> batch = withoutAbandoned(queued, OrderMetrics.Stage.BUSINESS);
+        List<OrderTask> processed = new ArrayList<>(batch.size());
+        for (OrderTask task : batch) {
             try {
-                validator.validate(order);
-                simulateBusinessLogic(order); // Simulate business logic
-                processedOrders.put(order.getId(), order); // Simulate order processing
-                return "Order " + order.getId() + " processed successfully";
-            } catch (Exception e) {
-                throw new CompletionException(e.getMessage(), e);
+                if (businessStep(task)) {
+                    processed.add(task);
+                }
+            } catch (RuntimeException e) {
+                task.failure = e;
             }
-            finally {
-                sample.stop(
-                        Timer.builder("order.processing.duration") // Metric name
-                                .description("Tiempo de procesamiento de pedidos") // Metric description
-                                .tag("orderId", String.valueOf(order.getId())) // Metric tag
-                                .register(meterRegistry) // Register the metric
-                );
+        }
+        if (!processed.isEmpty()) {
+            try {
+                storeStep(processed);
+            } catch (RuntimeException e) {
+                for (OrderTask task : processed) {
+                    if (!stored(task, e)) {
+                        task.failure = e;
+                    }
+                }
+            }
+        }
+        for (OrderTask task : batch) {
+            if (task.failure != null) {
+                fail(task, task.failure);
+            } else if (!task.result.isDone()) {
+                succeed(task);
+            }
+        }
+    }
+
+    /**
+     * The orders of {@code batch} still waited for, counting the rest as abandoned before {@code stage}.
+     */
+    private List<OrderTask> withoutAbandoned(List<OrderTask> batch, OrderMetrics.Stage stage) {
+        List<OrderTask> pending = new ArrayList<>(batch.size());
+        for (OrderTask task : batch) {
+            if (task.result.isDone()) {
+                metrics.recordAbandoned(stage);
+            } else {
+                pending.add(task);
             }
-        }, executorService);
+        }
+        return pending;
+    }
+
+    /**
+     * Runs the business logic of an order, interruptible by {@link #abandon}. Returns {@code false} without running
+     * it if the order was abandoned while it waited.
+     */
+    private boolean businessStep(OrderTask task) {
+        if (!task.begin()) {
+            metrics.recordAbandoned(OrderMetrics.Stage.BUSINESS);
+            return false;
+        }
+        task.trace.end(OrderTrace.Step.BUSINESS_QUEUE);
+        try {
+            metrics.recordStage(OrderMetrics.Stage.BUSINESS, () -> {
+                if (task.order != null) {
+                    simulateBusinessLogic(task.order); // Simulate business logic
+                    task.compact = CompactOrder.from(task.order, clock.millis());
+                } else {
+                    simulateLatency();
+                    task.compact = task.compact.withId(idGenerator.nextId());
+                }
+            });
+        } finally {
+            task.end();
+        }
+        task.trace.end(OrderTrace.Step.BUSINESS);
+        admissionControl.recordLatency(task.trace.endOf(OrderTrace.Step.BUSINESS) - task.trace.endOf(OrderTrace.Step.ADMISSION));
+        return true;
+    }
+
+    private void storeStep(List<OrderTask> batch) {
+        List<CompactOrder> orders = new ArrayList<>(batch.size());
+        for (OrderTask task : batch) {
+            task.trace.end(OrderTrace.Step.STORAGE_QUEUE);
+            orders.add(task.compact);
+        }
+        metrics.recordStage(OrderMetrics.Stage.STORAGE, () -> orderStore.saveAll(orders));
+        for (OrderTask task : batch) {
+            task.trace.end(OrderTrace.Step.STORAGE);
+        }
+    }
+
+    /**
+     * Whether the order of {@code task} was stored although saving its batch failed with {@code failure}, which
+     * only happens when the store saved part of the batch.
+     */
+    private static boolean stored(OrderTask task, RuntimeException failure) {
+        return failure instanceof PartialSaveException partial && partial.wasSaved(task.compact);
+    }
+
+    private void succeed(OrderTask task) {
+        customerStatistics.record(task.compact);
+        task.result.complete(ProcessedOrder.of(task.compact.getId()));
+    }
+
+    private static void fail(OrderTask task, Throwable failure) {
+        task.result.completeExceptionally(new CompletionException(failure.getMessage(), failure));
     }
 
     private void simulateBusinessLogic(Order order) {
+        simulateLatency();
+        order.setId(idGenerator.nextId());
+    }
+
+    private void simulateLatency() {
         try {
-            Thread.sleep(ThreadLocalRandom.current().nextInt(100, 501)); // Simulate processing time
-            order.setId(ThreadLocalRandom.current().nextLong(1_000L, 9_999L)); // Simulate ID generation
+            if (maxLatencyMillis > 0) {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(minLatencyMillis, maxLatencyMillis + 1)); // Simulate processing time
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Processing was interrupted", e);
         }
     }
 
+    /**
+     * Copies every stored order, for per-customer totals use {@link CustomerStatistics} instead.
+     */
     public List<Order> getProcessedOrders() {
-        return List.copyOf(processedOrders.values());
+        return orderStore.findAll();
+    }
+
+    /**
+     * Up to {@code limit} stored orders with an ID greater than {@code after}, in ascending ID order. The page
+     * carries the cursor of the next one while more orders follow.
+     */
+    public OrderPage getProcessedOrders(long after, int limit) {
+        List<Order> orders;
+        try (Stream<Order> stream = orderStore.findAfter(after)) {
+            orders = stream.limit(limit + 1L).collect(Collectors.toCollection(() -> new ArrayList<>(limit + 1)));
+        }
+        Long nextCursor = null;
+        if (orders.size() > limit) {
+            orders.remove(limit);
+            nextCursor = orders.get(limit - 1).getId();
+        }
+        return OrderPage.builder()
+                .orders(orders)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Every stored order with an ID greater than {@code after}, in ascending ID order, read from the store as the
+     * stream is consumed so that exporting all of them doesn't copy the store.
+     */
+    public Stream<Order> streamProcessedOrders(long after) {
+        return orderStore.findAfter(after);
+    }
+
+    /**
+     * Lets the orders in the pipeline finish, stage after stage, before stopping the stage threads.
+     * The business stage runs on the order executor, which is shut down on its own.
+     */
+    @Override
+    public void close() {
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        if (lanes != null) {
+            lanes.awaitIdle(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        business.awaitIdle(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        storage.awaitIdle(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        storageExecutor.shutdown();
+        deadlines.shutdownNow();
+    }
+
+    /**
+     * An order on its way through the pipeline. {@code order} is null for orders that arrive already compact.
+     */
+    private static final class OrderTask {
+        private final Order order;
+        private CompactOrder compact;
+        /** Why the order failed when processed in a lane, where it is only completed after the rest of its batch. */
+        private Throwable failure;
+        private final OrderTrace trace;
+        /** Thread running the business logic of the order, null when it isn't running. */
+        private Thread worker;
+        private final CompletableFuture<ProcessedOrder> result = new CompletableFuture<>();
+
+        private OrderTask(Order order, CompactOrder compact, OrderTrace trace) {
+            this.order = order;
+            this.compact = compact;
+            this.trace = trace;
+        }
+
+        /**
+         * Marks the current thread as running the business logic, unless the order was already abandoned.
+         */
+        private synchronized boolean begin() {
+            if (result.isDone()) {
+                return false;
+            }
+            worker = Thread.currentThread();
+            return true;
+        }
+
+        /**
+         * Clears the worker, along with an interrupt that arrived after the business logic returned, so that it
+         * doesn't hit the next order the thread runs.
+         */
+        private synchronized void end() {
+            worker = null;
+            Thread.interrupted();
+        }
+
+        private synchronized boolean interrupt() {
+            if (worker == null) {
+                return false;
+            }
+            worker.interrupt();
+            return true;
+        }
     }
 }
@@ -0,0 +1,31 @@
+package com.adrian.challenge.services;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for one step of a sampled order, emitted by {@link OrderTrace}. Its duration is the
+ * time the order spent in the step, so queue waits show up as steps of their own next to the work.
+ */
+@Name(OrderStageEvent.NAME)
+@Label("Order Stage")
+@Category({"Challenge", "Orders"})
+@Description("Time a sampled order spent in one step of its processing, waiting in a queue or being worked on")
+@StackTrace(false)
+final class OrderStageEvent extends Event {
+    static final String NAME = "com.adrian.challenge.OrderStage";
+
+    @Label("Step")
+    String step;
+
+    @Label("Trace")
+    @Description("Shared by the events of the same order")
+    long trace;
+
+    @Label("Customer")
+    String customer;
+}
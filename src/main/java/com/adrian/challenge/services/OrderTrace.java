@@ -0,0 +1,106 @@
+package com.adrian.challenge.services;
+
+import jdk.jfr.EventType;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Where the time of one order went: when each step of its processing ended, by {@link System#nanoTime()}. Every
+ * step starts where the previous one ended, so the waits for admission and for each stage are steps of their own
+ * and the steps add up to the whole order.
+ * <p>
+ * Recording a step is a clock read and an array store, cheap enough for every order. Sampled orders also emit an
+ * {@link OrderStageEvent} per step, as long as a Flight Recorder recording has the event enabled.
+ */
+public final class OrderTrace {
+
+    public enum Step { VALIDATION, ADMISSION, BUSINESS_QUEUE, BUSINESS, STORAGE_QUEUE, STORAGE }
+
+    private static final Step[] STEPS = Step.values();
+    private static final EventType EVENT_TYPE = EventType.getEventType(OrderStageEvent.class);
+
+    private final String customer;
+    private final long start;
+    /** When each step ended, 0 for the steps the order hasn't finished. */
+    private final long[] ends = new long[STEPS.length];
+    /** Shared by the events of this order, 0 unless it emits events. */
+    private final long id;
+    /** Event of the step in progress, null when the order doesn't emit events. */
+    private OrderStageEvent event;
+
+    /**
+     * @param sampleRate probability, between 0 and 1, that the order emits events
+     */
+    OrderTrace(String customer, long start, double sampleRate) {
+        this.customer = customer;
+        this.start = start;
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate && EVENT_TYPE.isEnabled()) {
+            this.id = ThreadLocalRandom.current().nextLong();
+            this.event = begin(STEPS[0]);
+        } else {
+            this.id = 0;
+        }
+    }
+
+    /**
+     * Records the end of {@code step}, which is also where the next step starts.
+     */
+    void end(Step step) {
+        ends[step.ordinal()] = System.nanoTime();
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.commit();
+            }
+            event = step.ordinal() + 1 < STEPS.length ? begin(STEPS[step.ordinal() + 1]) : null;
+        }
+    }
+
+    long start() {
+        return start;
+    }
+
+    String customer() {
+        return customer;
+    }
+
+    /**
+     * When {@code step} ended, 0 if the order hasn't finished it.
+     */
+    long endOf(Step step) {
+        return ends[step.ordinal()];
+    }
+
+    /**
+     * Nanoseconds spent in each step the order finished, in order.
+     */
+    Map<Step, Long> durations() {
+        Map<Step, Long> durations = new LinkedHashMap<>();
+        long previous = start;
+        for (Step step : STEPS) {
+            long end = ends[step.ordinal()];
+            if (end == 0) {
+                break;
+            }
+            durations.put(step, end - previous);
+            previous = end;
+        }
+        return durations;
+    }
+
+    static String name(Step step) {
+        return step.name().toLowerCase(Locale.ROOT);
+    }
+
+    private OrderStageEvent begin(Step step) {
+        OrderStageEvent next = new OrderStageEvent();
+        next.step = name(step);
+        next.trace = id;
+        next.customer = customer;
+        next.begin();
+        return next;
+    }
+}
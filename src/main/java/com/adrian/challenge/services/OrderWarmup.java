@@ -0,0 +1,111 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.models.OrderResponse;
+import com.adrian.challenge.models.ProcessedOrder;
+import com.adrian.challenge.validators.OrderValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs sample orders through the code every order goes through before the application takes traffic: JSON
+ * binding of the order and the response, bean validation and the amount check. Otherwise the first orders a new
+ * node receives pay for class loading, metadata caches and interpreted code, and take many times longer than the
+ * following ones.
+ * <p>
+ * It starts in an early lifecycle phase, so the web server only opens its port, and the application only
+ * reports readiness, once the order path is warm. Nothing is stored: the sample orders never reach
+ * {@link OrderService}.
+ * <p>
+ * Off unless {@code orders.warmup.enabled} is set, as the {@code fast-startup} profile does: it delays every
+ * startup by up to {@code orders.warmup.max-duration}, which only pays off for a node about to take traffic.
+ */
+@Slf4j
+@Component
+public class OrderWarmup implements SmartLifecycle {
+    /** Before the web server, which starts in one of the last phases. */
+    private static final int PHASE = 0;
+    private static final int ITEMS = 10;
+
+    private final ObjectMapper mapper;
+    private final Validator beanValidator;
+    private final OrderValidator validator;
+    private final OrderProperties.Warmup config;
+    private volatile boolean running;
+
+    public OrderWarmup(ObjectMapper mapper, Validator beanValidator, OrderValidator validator,
+                       OrderProperties properties) {
+        this.mapper = mapper;
+        this.beanValidator = beanValidator;
+        this.validator = validator;
+        this.config = properties.getWarmup();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!config.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + config.getMaxDuration().toNanos();
+        int iterations = 0;
+        try {
+            byte[] json = mapper.writeValueAsBytes(sampleOrder());
+            while (iterations < config.getIterations() && System.nanoTime() - deadline < 0) {
+                warmUp(json, iterations++);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Order path warmup failed", e);
+        }
+        log.info("Warmed up the order path with {} sample orders in {} ms", iterations,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void warmUp(byte[] json, int iteration) throws IOException {
+        Order order = mapper.readValue(json, Order.class);
+        if (!beanValidator.validate(order).isEmpty()) {
+            throw new IllegalStateException("Warmup order is invalid");
+        }
+        validator.validate(order);
+        mapper.writeValueAsBytes(OrderResponse.success(ProcessedOrder.of(iteration)));
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private static Order sampleOrder() {
+        List<Item> items = new ArrayList<>(ITEMS);
+        BigDecimal amount = BigDecimal.ZERO;
+        for (int i = 0; i < ITEMS; i++) {
+            BigDecimal unitPrice = BigDecimal.valueOf(1_000 + i * 37L, 2);
+            items.add(Item.builder().productId((long) i).name("Product " + i).quantity(1 + i % 5).unitPrice(unitPrice).build());
+            amount = amount.add(unitPrice.multiply(BigDecimal.valueOf(1 + i % 5)));
+        }
+        return Order.builder().customer("Warmup").items(items).amount(amount).build();
+    }
+}
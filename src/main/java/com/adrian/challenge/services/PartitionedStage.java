@@ -0,0 +1,126 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.configs.OrderProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A stage split into lanes: every item goes to the lane its key hashes to, and each lane is a
+ * {@link PipelineStage} with a single worker. Items with the same key are therefore handled one at a time in the
+ * order they were offered, while different keys spread over the lanes and run in parallel on the shared
+ * executor.
+ * <p>
+ * Lanes only publish aggregate meters, so their number doesn't grow with the lane count: total and deepest
+ * queue, busy lanes and how much more the busiest lane received than the average one.
+ */
+public class PartitionedStage<T> {
+    private final PipelineStage<T>[] lanes;
+    /** Items routed to each lane since startup. */
+    private final AtomicLongArray routed;
+
+    @SuppressWarnings("unchecked")
+    public PartitionedStage(OrderProperties.Lanes config, Executor executor, Consumer<List<T>> handler,
+                            BiConsumer<T, Throwable> rejectionHandler, MeterRegistry meterRegistry) {
+        if (config.getCount() < 1) {
+            throw new IllegalArgumentException("Lane count must be at least 1, got " + config.getCount());
+        }
+        OrderProperties.Stage laneConfig = new OrderProperties.Stage(1, config.getQueueCapacity(), config.getBatchSize());
+        this.lanes = new PipelineStage[config.getCount()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new PipelineStage<>(laneConfig, executor, handler, rejectionHandler);
+        }
+        this.routed = new AtomicLongArray(lanes.length);
+
+        Gauge.builder("order.lanes.count", lanes, array -> array.length)
+                .description("Per-customer lanes orders are partitioned into")
+                .register(meterRegistry);
+        Gauge.builder("order.lanes.queue.depth", this, PartitionedStage::getQueueDepth)
+                .description("Orders waiting in all per-customer lanes")
+                .register(meterRegistry);
+        Gauge.builder("order.lanes.queue.depth.max", this, PartitionedStage::getMaxQueueDepth)
+                .description("Orders waiting in the most loaded per-customer lane")
+                .register(meterRegistry);
+        Gauge.builder("order.lanes.active", this, PartitionedStage::getActiveLanes)
+                .description("Per-customer lanes currently processing an order")
+                .register(meterRegistry);
+        Gauge.builder("order.lanes.imbalance", this, PartitionedStage::getImbalance)
+                .description("Orders routed to the busiest lane divided by the average per lane, 1 when even")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues {@code item} in the lane of {@code key}, or returns {@code false} without waiting if that lane
+     * is full.
+     */
+    public boolean offer(Object key, T item) {
+        int lane = laneOf(key);
+        if (!lanes[lane].offer(item)) {
+            return false;
+        }
+        routed.incrementAndGet(lane);
+        return true;
+    }
+
+    public int laneOf(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length); // spread the high bits like HashMap does
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (PipelineStage<T> lane : lanes) {
+            depth += lane.getQueueDepth();
+        }
+        return depth;
+    }
+
+    public int getMaxQueueDepth() {
+        int max = 0;
+        for (PipelineStage<T> lane : lanes) {
+            max = Math.max(max, lane.getQueueDepth());
+        }
+        return max;
+    }
+
+    public int getActiveLanes() {
+        int active = 0;
+        for (PipelineStage<T> lane : lanes) {
+            active += lane.getActiveWorkers();
+        }
+        return active;
+    }
+
+    public double getImbalance() {
+        long total = 0;
+        long max = 0;
+        for (int i = 0; i < routed.length(); i++) {
+            long count = routed.get(i);
+            total += count;
+            max = Math.max(max, count);
+        }
+        return total == 0 ? 0 : max / ((double) total / routed.length());
+    }
+
+    /**
+     * Waits up to {@code timeout} until no lane has anything queued or being processed.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (PipelineStage<T> lane : lanes) {
+            if (!lane.awaitIdle(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,185 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.configs.OrderProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * One stage of a staged pipeline: a bounded {@link RingBuffer} of pending items and up to {@code parallelism}
+ * workers taking them off in batches of at most {@code batchSize}.
+ * <p>
+ * Workers are not threads of their own but runs submitted to the stage's executor on demand. A run takes one
+ * batch, hands it to the handler and schedules the next run while items remain, so an idle stage holds no
+ * thread and stages sharing an executor take turns on it. Each stage publishes its queue depth, busy and maximum
+ * workers and batch sizes, tagged with its name.
+ */
+public class PipelineStage<T> {
+    private static final long PUT_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final RingBuffer<T> queue;
+    private final int parallelism;
+    private final int batchSize;
+    private final Executor executor;
+    private final Consumer<List<T>> handler;
+    private final BiConsumer<T, Throwable> rejectionHandler;
+
+    private final AtomicInteger workers = new AtomicInteger();
+    private DistributionSummary batchSizes;
+
+    /**
+     * @param handler          processes one batch, it must not throw
+     * @param rejectionHandler fails an item left in the queue when the executor rejects the run that would
+     *                         have processed it
+     */
+    public PipelineStage(String name, OrderProperties.Stage config, Executor executor, Consumer<List<T>> handler,
+                         BiConsumer<T, Throwable> rejectionHandler, MeterRegistry meterRegistry) {
+        this(config, executor, handler, rejectionHandler);
+        Tags tags = Tags.of("stage", name);
+        Gauge.builder("order.pipeline.queue.depth", queue, RingBuffer::size)
+                .description("Orders waiting in each pipeline stage")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("order.pipeline.queue.capacity", queue, RingBuffer::capacity)
+                .description("Orders each pipeline stage can hold waiting")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("order.pipeline.workers.active", workers, AtomicInteger::get)
+                .description("Workers busy in each pipeline stage")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("order.pipeline.workers.max", this, stage -> stage.parallelism)
+                .description("Maximum workers of each pipeline stage")
+                .tags(tags)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("order.pipeline.batch.size")
+                .description("Orders taken by each worker run, by pipeline stage")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A stage without meters of its own, for stages that are part of a larger one such as the lanes of a
+     * {@link PartitionedStage}.
+     */
+    public PipelineStage(OrderProperties.Stage config, Executor executor, Consumer<List<T>> handler,
+                         BiConsumer<T, Throwable> rejectionHandler) {
+        if (config.getParallelism() < 1 || config.getBatchSize() < 1) {
+            throw new IllegalArgumentException("Parallelism and batch size of a pipeline stage must be at least 1");
+        }
+        this.queue = new RingBuffer<>(config.getQueueCapacity());
+        this.parallelism = config.getParallelism();
+        this.batchSize = config.getBatchSize();
+        this.executor = executor;
+        this.handler = handler;
+        this.rejectionHandler = rejectionHandler;
+    }
+
+    /**
+     * Queues {@code item}, or returns {@code false} without waiting if the stage is full.
+     */
+    public boolean offer(T item) {
+        if (!queue.offer(item)) {
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    /**
+     * Queues {@code item}, waiting while the stage is full. Called by the workers of the previous stage, which
+     * slows that stage down to the pace of this one instead of dropping work already done.
+     */
+    public void put(T item) {
+        while (!offer(item)) {
+            LockSupport.parkNanos(PUT_BACKOFF_NANOS);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getActiveWorkers() {
+        return workers.get();
+    }
+
+    /**
+     * Waits up to {@code timeout} until nothing is queued or being processed, returns whether it got there.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!queue.isEmpty() || workers.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * Starts one more worker run if items are queued and fewer than {@code parallelism} runs are active. Runs
+     * call it again as they end, so an item offered while the last run was finishing is never left behind.
+     */
+    private void schedule() {
+        while (!queue.isEmpty()) {
+            int running = workers.get();
+            if (running >= parallelism) {
+                return;
+            }
+            if (workers.compareAndSet(running, running + 1)) {
+                try {
+                    executor.execute(this::runBatch);
+                } catch (RejectedExecutionException e) {
+                    workers.decrementAndGet();
+                    rejectQueued(e);
+                }
+                return;
+            }
+        }
+    }
+
+    private void runBatch() {
+        try {
+            List<T> batch = new ArrayList<>(Math.max(1, Math.min(batchSize, queue.size())));
+            T item;
+            while (batch.size() < batchSize && (item = queue.poll()) != null) {
+                batch.add(item);
+            }
+            if (!batch.isEmpty()) {
+                if (batchSizes != null) {
+                    batchSizes.record(batch.size());
+                }
+                handler.accept(batch);
+            }
+        } finally {
+            workers.decrementAndGet();
+            schedule();
+        }
+    }
+
+    /**
+     * With no run left to take them, the queued items would never be processed.
+     */
+    private void rejectQueued(RejectedExecutionException e) {
+        if (workers.get() > 0) {
+            return;
+        }
+        T item;
+        while ((item = queue.poll()) != null) {
+            rejectionHandler.accept(item, e);
+        }
+    }
+}
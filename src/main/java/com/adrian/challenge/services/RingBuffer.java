@@ -0,0 +1,106 @@
+package com.adrian.challenge.services;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer multi-consumer queue over a power-of-two array (Vyukov's bounded MPMC queue).
+ * <p>
+ * Every slot carries a sequence number telling producers and consumers whose turn it is: a producer claims
+ * position {@code p} with one CAS on the tail once the slot's sequence is {@code p}, publishes the element and
+ * sets the sequence to {@code p + 1}; a consumer claims it with one CAS on the head once the sequence is
+ * {@code p + 1} and hands the slot to the next lap by setting it to {@code p + capacity}. Neither side ever
+ * blocks or allocates, and a full or empty queue is reported instead of waited on.
+ */
+public final class RingBuffer<E> {
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    /** Next position to poll. */
+    private final AtomicLong head = new AtomicLong();
+    /** Next position to offer. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity minimum number of elements held, rounded up to a power of two of at least 2: with a single
+     *                 slot its sequence after publishing and after consuming would be the same
+     */
+    public RingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30, got " + capacity);
+        }
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds {@code element} at the tail, or returns {@code false} if the queue is full.
+     */
+    public boolean offer(E element) {
+        Objects.requireNonNull(element, "element");
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long lag = sequences.get(index) - position;
+            if (lag == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.set(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (lag < 0) {
+                return false; // the slot still holds the element of the previous lap
+            } else {
+                position = tail.get(); // another producer claimed it
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the head of the queue, or {@code null} if it is empty.
+     */
+    public E poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long lag = sequences.get(index) - (position + 1);
+            if (lag == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = elements.get(index);
+                    elements.set(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return element;
+                }
+                position = head.get();
+            } else if (lag < 0) {
+                return null; // nothing published at this position yet
+            } else {
+                position = head.get(); // another consumer took it
+            }
+        }
+    }
+
+    /**
+     * Approximate number of elements, exact when no offer or poll is in progress.
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,116 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.models.SlowOrder;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The slowest recent orders and where their time went, served by the {@code slowOrders} actuator endpoint.
+ * <p>
+ * Orders are ranked within windows of {@code orders.tracing.slow-orders-window} and the current and previous
+ * windows are kept, so a slow order stays listed for one to two windows. Once the current window holds its
+ * {@code orders.tracing.slow-orders} entries, an order no slower than the fastest of them is turned away after a
+ * single volatile read, which lets every order be offered.
+ */
+@Component
+public class SlowOrderLog {
+    private static final Comparator<Entry> FASTEST_FIRST = Comparator.comparingLong(Entry::totalNanos);
+
+    private final int capacity;
+    private final long windowNanos;
+    private final Clock clock = Clock.systemUTC();
+
+    private PriorityQueue<Entry> current = new PriorityQueue<>(FASTEST_FIRST);
+    private List<Entry> previous = List.of();
+    /** When the current window ends, by {@link System#nanoTime()}. */
+    private volatile long windowEnd;
+    /** Total time an order must exceed to enter the current window, 0 while it isn't full. */
+    private volatile long threshold;
+
+    public SlowOrderLog(OrderProperties properties) {
+        this.capacity = Math.max(0, properties.getTracing().getSlowOrders());
+        this.windowNanos = properties.getTracing().getSlowOrdersWindow().toNanos();
+        this.windowEnd = System.nanoTime() + windowNanos;
+    }
+
+    /**
+     * Offers an order that completed at {@code end}.
+     *
+     * @param orderId 0 if the order failed before it was given one
+     * @param outcome {@code success} or the kind of error it failed with
+     */
+    void record(OrderTrace trace, long end, long orderId, String outcome) {
+        long total = end - trace.start();
+        if (capacity == 0 || (total <= threshold && end - windowEnd < 0)) {
+            return;
+        }
+        synchronized (this) {
+            if (end - windowEnd >= 0) {
+                rotate(end);
+            }
+            if (current.size() == capacity) {
+                if (total <= current.peek().totalNanos()) {
+                    return;
+                }
+                current.poll();
+            }
+            current.add(new Entry(trace, total, orderId, outcome, clock.millis()));
+            threshold = current.size() == capacity ? current.peek().totalNanos() : 0;
+        }
+    }
+
+    /**
+     * The slowest orders of the current and previous windows, slowest first.
+     */
+    public List<SlowOrder> slowest() {
+        List<Entry> entries;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (now - windowEnd >= 0) {
+                rotate(now);
+            }
+            entries = new ArrayList<>(current);
+            entries.addAll(previous);
+        }
+        entries.sort(FASTEST_FIRST.reversed());
+        return entries.stream().limit(capacity).map(SlowOrderLog::toSlowOrder).toList();
+    }
+
+    private void rotate(long now) {
+        boolean skippedAWindow = now - windowEnd >= windowNanos;
+        previous = skippedAWindow ? List.of() : List.copyOf(current);
+        current = new PriorityQueue<>(FASTEST_FIRST);
+        windowEnd = now + windowNanos;
+        threshold = 0;
+    }
+
+    private static SlowOrder toSlowOrder(Entry entry) {
+        Map<String, Double> steps = new LinkedHashMap<>();
+        entry.trace().durations().forEach((step, nanos) -> steps.put(OrderTrace.name(step), millis(nanos)));
+        return SlowOrder.builder()
+                .orderId(entry.orderId() > 0 ? entry.orderId() : null)
+                .customer(entry.trace().customer())
+                .outcome(entry.outcome())
+                .completedAt(Instant.ofEpochMilli(entry.completedAtMillis()))
+                .totalMillis(millis(entry.totalNanos()))
+                .steps(steps)
+                .build();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private record Entry(OrderTrace trace, long totalNanos, long orderId, String outcome, long completedAtMillis) {
+    }
+}
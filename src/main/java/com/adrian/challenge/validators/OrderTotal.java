@@ -0,0 +1,76 @@
+package com.adrian.challenge.validators;
+
+import com.adrian.challenge.repositories.CompactOrder;
+
+import java.math.BigDecimal;
+
+/**
+ * Running sum of {@code unitPrice * quantity} over the items of an order.
+ * <p>
+ * While every price has at most two decimals and the sum fits in a {@code long}, the total is kept in scaled
+ * {@code long} cents without allocating a {@link BigDecimal} per item. The first price or product that doesn't fit
+ * switches the accumulator to exact {@link BigDecimal} arithmetic. Either way {@link #toBigDecimal()} returns the
+ * same value and scale as {@code items.map(unitPrice * quantity).reduce(BigDecimal.ZERO, BigDecimal::add)}.
+ */
+public final class OrderTotal {
+    private static final int CENTS_SCALE = 2;
+    private static final long NOT_CENTS = CompactOrder.NOT_CENTS;
+
+    private long cents;
+    /** Largest item scale so far, the scale of the equivalent {@link BigDecimal} sum. */
+    private int scale;
+    /** Exact total once the cents fast path no longer applies. */
+    private BigDecimal exact;
+
+    public void add(BigDecimal unitPrice, int quantity) {
+        if (exact == null) {
+            long priceCents = CompactOrder.toCents(unitPrice);
+            if (priceCents != NOT_CENTS) {
+                try {
+                    cents = Math.addExact(cents, Math.multiplyExact(priceCents, (long) quantity));
+                    scale = Math.max(scale, unitPrice.scale());
+                    return;
+                } catch (ArithmeticException overflow) {
+                    // fall through to the exact path
+                }
+            }
+            exact = toBigDecimal();
+        }
+        exact = exact.add(unitPrice.multiply(BigDecimal.valueOf(quantity)));
+    }
+
+    public BigDecimal toBigDecimal() {
+        return exact != null ? exact : BigDecimal.valueOf(cents, CENTS_SCALE).setScale(scale);
+    }
+
+    /**
+     * Whether {@code |total - amount| > tolerance}, compared in cents when both sides fit.
+     */
+    public boolean differsFrom(BigDecimal amount, BigDecimal tolerance) {
+        return exceeds(amount, tolerance, true);
+    }
+
+    /**
+     * Whether {@code total - amount > tolerance}, i.e. the total is already too high for {@code amount}.
+     */
+    public boolean exceeds(BigDecimal amount, BigDecimal tolerance) {
+        return exceeds(amount, tolerance, false);
+    }
+
+    private boolean exceeds(BigDecimal amount, BigDecimal tolerance, boolean absolute) {
+        if (exact == null) {
+            long amountCents = CompactOrder.toCents(amount);
+            long toleranceCents = CompactOrder.toCents(tolerance);
+            if (amountCents != NOT_CENTS && toleranceCents != NOT_CENTS) {
+                try {
+                    long difference = Math.subtractExact(cents, amountCents);
+                    return (absolute ? Math.absExact(difference) : difference) > toleranceCents;
+                } catch (ArithmeticException overflow) {
+                    // fall through to the exact comparison
+                }
+            }
+        }
+        BigDecimal difference = toBigDecimal().subtract(amount);
+        return (absolute ? difference.abs() : difference).compareTo(tolerance) > 0;
+    }
+}
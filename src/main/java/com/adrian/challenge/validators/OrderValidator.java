@@ -1,10 +1,12 @@
 package com.adrian.challenge.validators;
 
 import com.adrian.challenge.exceptions.InvalidOrderAmountException;
+import com.adrian.challenge.models.Item;
 import com.adrian.challenge.models.Order;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Component
 public class OrderValidator {
@@ -15,16 +17,17 @@ public class OrderValidator {
     }
 
     private void validateTotalAmount(Order order) {
-        BigDecimal expectedAmount = order.getItems().stream()
-                .map(item -> item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal difference = expectedAmount.subtract(order.getAmount()).abs();
+        List<Item> items = order.getItems();
+        OrderTotal expectedAmount = new OrderTotal();
+        for (int i = 0, size = items.size(); i < size; i++) {
+            Item item = items.get(i);
+            expectedAmount.add(item.getUnitPrice(), item.getQuantity());
+        }
 
-        if (difference.compareTo(TOLERANCE) > 0) {
+        if (expectedAmount.differsFrom(order.getAmount(), TOLERANCE)) {
             throw new InvalidOrderAmountException(
                     "Mismatch between orderAmount and sum of item totals. Expected: " +
-                            expectedAmount + ", but got: " + order.getAmount()
+                            expectedAmount.toBigDecimal() + ", but got: " + order.getAmount()
             );
         }
     }
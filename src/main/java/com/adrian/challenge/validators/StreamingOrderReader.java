@@ -0,0 +1,200 @@
+package com.adrian.challenge.validators;
+
+import com.adrian.challenge.exceptions.CustomBadRequestException;
+import com.adrian.challenge.exceptions.InvalidOrderAmountException;
+import com.adrian.challenge.repositories.CompactOrder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Clock;
+
+/**
+ * Reads an order from its JSON body with Jackson's streaming parser, validating it item by item instead of binding
+ * the whole body to an {@link com.adrian.challenge.models.Order} first.
+ * <p>
+ * Items go straight into a {@link CompactOrder}, so no {@code Item} objects are created, and the total is
+ * accumulated in an {@link OrderTotal} as they are read. Reading stops at the first invalid item, and as soon as
+ * the items already read add up to more than the order amount when the amount came before them. Accepts and
+ * rejects the same orders as bean validation followed by {@link OrderValidator}, except that a missing amount or
+ * unit price is a bad request rather than an internal error.
+ */
+@Component
+public class StreamingOrderReader {
+    private static final BigDecimal TOLERANCE = new BigDecimal("0.01");
+    private static final int MIN_ITEM_CAPACITY = 16;
+    private static final int MAX_ITEM_CAPACITY = 1 << 17;
+    /** Typical size of one item in the JSON body, used to size the item arrays from the Content-Length. */
+    private static final int ESTIMATED_ITEM_BYTES = 64;
+    private static final int ORDER = -1;
+
+    private final JsonFactory jsonFactory;
+    private final Clock clock;
+
+    @Autowired
+    public StreamingOrderReader(ObjectMapper mapper) {
+        this(mapper.getFactory(), Clock.systemUTC());
+    }
+
+    public StreamingOrderReader(JsonFactory jsonFactory, Clock clock) {
+        this.jsonFactory = jsonFactory;
+        this.clock = clock;
+    }
+
+    public CompactOrder read(InputStream body) throws IOException {
+        return read(body, -1);
+    }
+
+    /**
+     * Reads and validates one order, without an ID yet. {@code contentLength}, when known, presizes the item
+     * arrays so they don't have to grow while the items are read.
+     *
+     * @throws CustomBadRequestException   if the body is not a valid order
+     * @throws InvalidOrderAmountException if the amount does not match the sum of the items
+     */
+    public CompactOrder read(InputStream body, long contentLength) throws IOException {
+        int itemCapacity = (int) Math.max(MIN_ITEM_CAPACITY, Math.min(MAX_ITEM_CAPACITY, contentLength / ESTIMATED_ITEM_BYTES));
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return read(parser, itemCapacity);
+        } catch (JsonProcessingException e) {
+            throw new CustomBadRequestException("Malformed order: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private CompactOrder read(JsonParser parser, int itemCapacity) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new CustomBadRequestException("Order must be a JSON object");
+        }
+        CompactOrder.Builder builder = CompactOrder.builder(0, null, 0, clock.millis(), itemCapacity);
+        OrderTotal total = new OrderTotal();
+        String customer = null;
+        BigDecimal amount = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "customer" -> customer = readText(parser, ORDER, "customer");
+                case "amount" -> {
+                    amount = readDecimal(parser, ORDER, "amount");
+                    if (amount != null) {
+                        check(amount.signum() >= 0, ORDER, "amount", "Order amount must be non-negative");
+                        checkNotExceeded(total, amount, builder.getItemCount());
+                    }
+                }
+                case "items" -> readItems(parser, builder, total, amount);
+                default -> parser.skipChildren();
+            }
+        }
+
+        check(customer != null && !customer.isBlank(), ORDER, "customer", "Customer ID is required");
+        check(builder.getItemCount() > 0, ORDER, "items", "Order must contain at least one item");
+        check(amount != null, ORDER, "amount", "Order amount is required");
+        if (total.differsFrom(amount, TOLERANCE)) {
+            throw new InvalidOrderAmountException(
+                    "Mismatch between orderAmount and sum of item totals. Expected: " +
+                            total.toBigDecimal() + ", but got: " + amount
+            );
+        }
+        return builder.customer(customer).amount(amount).build();
+    }
+
+    private void readItems(JsonParser parser, CompactOrder.Builder builder, OrderTotal total, BigDecimal amount)
+            throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        check(parser.currentToken() == JsonToken.START_ARRAY, ORDER, "items", "Items must be an array");
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            int index = builder.getItemCount();
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                throw new CustomBadRequestException("items[" + index + "]: Item must be a JSON object");
+            }
+
+            Long productId = null;
+            String name = null;
+            int quantity = 0;
+            BigDecimal unitPrice = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "productId" -> productId = parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+                    case "name" -> name = readText(parser, index, "name");
+                    case "quantity" -> quantity = parser.getValueAsInt();
+                    case "unitPrice" -> unitPrice = readDecimal(parser, index, "unitPrice");
+                    default -> parser.skipChildren();
+                }
+            }
+
+            check(productId != null, index, "productId", "Product ID is required");
+            check(name != null && !name.isBlank(), index, "name", "Product name is required");
+            check(quantity >= 1, index, "quantity", "Quantity must be at least 1");
+            check(unitPrice != null, index, "unitPrice", "Unit price is required");
+            check(unitPrice.signum() >= 0, index, "unitPrice", "Unit price must be non-negative");
+
+            total.add(unitPrice, quantity);
+            builder.addItem(productId, name, quantity, unitPrice);
+            if (amount != null) {
+                checkNotExceeded(total, amount, index + 1);
+            }
+        }
+    }
+
+    /**
+     * Prices and quantities are non-negative, so once the running total is too high no later item can fix it.
+     */
+    private static void checkNotExceeded(OrderTotal total, BigDecimal amount, int itemsRead) {
+        if (total.exceeds(amount, TOLERANCE)) {
+            throw new InvalidOrderAmountException(
+                    "Mismatch between orderAmount and sum of item totals. The first " + itemsRead +
+                            " items already add up to " + total.toBigDecimal() + ", but got: " + amount
+            );
+        }
+    }
+
+    private static String readText(JsonParser parser, int item, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        check(token.isScalarValue(), item, field, "Must be a string");
+        return parser.getValueAsString();
+    }
+
+    private static BigDecimal readDecimal(JsonParser parser, int item, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return new BigDecimal(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                throw new CustomBadRequestException(path(item, field) + ": Must be a number");
+            }
+        }
+        check(token.isNumeric(), item, field, "Must be a number");
+        return parser.getDecimalValue();
+    }
+
+    /**
+     * Fails with the path of {@code field}, in the order itself when {@code item} is {@link #ORDER} or else in that
+     * item. The path is only built on failure, keeping the per-item checks allocation free.
+     */
+    private static void check(boolean valid, int item, String field, String message) {
+        if (!valid) {
+            throw new CustomBadRequestException(path(item, field) + ": " + message);
+        }
+    }
+
+    private static String path(int item, String field) {
+        return item == ORDER ? field : "items[" + item + "]." + field;
+    }
+}
@@ -0,0 +1,178 @@
+package com.adrian.challenge.benchmark;
+
+import com.adrian.challenge.ChallengeApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Measures how the throughput of {@code POST /processOrder} grows with the number of nodes of a cluster.
+ * <p>
+ * For each cluster size it starts that many nodes on localhost, in this JVM, each allowed {@code max-in-flight}
+ * orders of a fixed simulated latency at once, so that a node saturates like one with its own hardware would.
+ * A closed loop of {@code clients} clients then sends orders of random customers to the nodes in turn, as a load
+ * balancer unaware of the ring would, so most orders are forwarded once to the owner of their customer. It
+ * reports the throughput and latency percentiles of the successful orders, measured after a warmup.
+ * <p>
+ * Not a unit test: run it manually, e.g. with
+ * {@code java -cp target/classes:target/test-classes:<deps> com.adrian.challenge.benchmark.ClusterScalingBenchmark}.
+ * Options (defaults in brackets): {@code --nodes} cluster sizes [1,2,4], {@code --clients} [64],
+ * {@code --max-in-flight} per node [10], {@code --latency} per order [100ms], {@code --duration} [20s],
+ * {@code --warmup} [5s].
+ */
+public class ClusterScalingBenchmark {
+
+    private static final String ORDER = """
+            {"customer":"%s","amount":30.00,"items":[\
+            {"productId":1,"name":"Product 1","quantity":2,"unitPrice":10.00},\
+            {"productId":2,"name":"Product 2","quantity":1,"unitPrice":10.00}]}""";
+    private static final int CUSTOMERS = 10_000;
+
+    private record Result(int nodes, double throughput, Histogram latency, long failures) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int[] sizes = Arrays.stream(options.getOrDefault("nodes", "1,2,4").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int clients = Integer.parseInt(options.getOrDefault("clients", "64"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "10"));
+        String latency = options.getOrDefault("latency", "100ms");
+        Duration duration = Duration.parse("PT" + options.getOrDefault("duration", "20s"));
+        Duration warmup = Duration.parse("PT" + options.getOrDefault("warmup", "5s"));
+
+        System.out.printf("%d clients, %d orders of %s in flight per node, %s after %s warmup%n",
+                clients, maxInFlight, latency, duration, warmup);
+        List<Result> results = new ArrayList<>();
+        for (int size : sizes) {
+            List<ConfigurableApplicationContext> nodes = startCluster(size, maxInFlight, latency);
+            try {
+                List<URI> uris = nodes.stream()
+                        .map(node -> URI.create("http://localhost:" + node.getEnvironment().getProperty("local.server.port")
+                                + "/processOrder"))
+                        .toList();
+                results.add(run(size, uris, clients, warmup, duration));
+            } finally {
+                nodes.forEach(ConfigurableApplicationContext::close);
+            }
+        }
+
+        System.out.printf("%n%-6s %14s %8s %10s %10s %10s%n", "nodes", "orders/s", "scaling", "p50 (ms)", "p99 (ms)", "failures");
+        double base = results.get(0).throughput() / results.get(0).nodes();
+        for (Result result : results) {
+            System.out.printf("%-6d %14.1f %7.2fx %10.1f %10.1f %10d%n", result.nodes(), result.throughput(),
+                    result.throughput() / base, result.latency().getValueAtPercentile(50) / 1e6,
+                    result.latency().getValueAtPercentile(99) / 1e6, result.failures());
+        }
+    }
+
+    private static List<ConfigurableApplicationContext> startCluster(int size, int maxInFlight, String latency)
+            throws IOException {
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ports.add(freePort());
+        }
+        String peers = ports.stream().map(port -> "http://localhost:" + port).collect(Collectors.joining(","));
+        List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            nodes.add(new SpringApplicationBuilder(ChallengeApplication.class).run(
+                    "--server.port=" + ports.get(i),
+                    "--orders.id.node-id=" + i,
+                    "--orders.cluster.enabled=" + (size > 1),
+                    "--orders.cluster.self=http://localhost:" + ports.get(i),
+                    "--orders.cluster.peers=" + peers,
+                    "--orders.processing.min-latency=" + latency,
+                    "--orders.processing.max-latency=" + latency,
+                    "--orders.admission.max-in-flight=" + maxInFlight,
+                    "--orders.admission.max-queued=100000",
+                    "--orders.admission.queue-wait-timeout=30s",
+                    "--logging.level.root=WARN"));
+        }
+        return nodes;
+    }
+
+    private static Result run(int size, List<URI> uris, int clients, Duration warmup, Duration duration)
+            throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        Histogram latency = new ConcurrentHistogram(3);
+        LongAdder failures = new LongAdder();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            executor.execute(() -> {
+                for (int i = client; System.nanoTime() < end; i += clients) {
+                    String customer = "Customer " + ThreadLocalRandom.current().nextInt(CUSTOMERS);
+                    HttpRequest request = HttpRequest.newBuilder(uris.get(i % uris.size()))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(ORDER.formatted(customer)))
+                            .build();
+                    long start = System.nanoTime();
+                    boolean success;
+                    try {
+                        success = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 201;
+                    } catch (IOException e) {
+                        success = false;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    long now = System.nanoTime();
+                    if (start >= measureFrom && now <= end) {
+                        if (success) {
+                            latency.recordValue(now - start);
+                        } else {
+                            failures.increment();
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(duration.plus(warmup).toSeconds() + 60, TimeUnit.SECONDS);
+
+        double throughput = latency.getTotalCount() / (duration.toNanos() / 1e9);
+        System.out.printf("%d node(s): %.1f orders/s, p99 %.1f ms, %d failures%n",
+                size, throughput, latency.getValueAtPercentile(99) / 1e6, failures.sum());
+        return new Result(size, throughput, latency, failures.sum());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
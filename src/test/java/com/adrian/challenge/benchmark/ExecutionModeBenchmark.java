@@ -0,0 +1,115 @@
+package com.adrian.challenge.benchmark;
+
+import com.adrian.challenge.configs.AsyncConfig;
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.repositories.InMemoryOrderStore;
+import com.adrian.challenge.services.CustomerStatistics;
+import com.adrian.challenge.services.OrderAdmissionControl;
+import com.adrian.challenge.services.OrderIdGenerator;
+import com.adrian.challenge.services.OrderMetrics;
+import com.adrian.challenge.services.OrderService;
+import com.adrian.challenge.services.SlowOrderLog;
+import com.adrian.challenge.validators.OrderValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the PLATFORM and VIRTUAL execution modes of {@link OrderService}.
+ * <p>
+ * Not a unit test: run it manually, e.g. from the IDE or with
+ * {@code java -cp target/classes:target/test-classes:<deps> com.adrian.challenge.benchmark.ExecutionModeBenchmark 5000 2000}.
+ * Arguments are the number of orders and the maximum number of orders in flight.
+ */
+public class ExecutionModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        for (OrderProperties.ExecutionMode mode : OrderProperties.ExecutionMode.values()) {
+            run(mode, orders, inFlight);
+        }
+        System.exit(0); // the service executors are never shut down
+    }
+
+    private static void run(OrderProperties.ExecutionMode mode, int orders, int inFlight) throws Exception {
+        OrderProperties properties = new OrderProperties();
+        properties.getExecutor().setMode(mode);
+        properties.getAdmission().setMaxInFlight(inFlight);
+        properties.getPipeline().getBusiness().setParallelism(inFlight);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderService service = new OrderService(new OrderMetrics(meterRegistry), new OrderValidator(),
+                new AsyncConfig().orderExecutor(properties, meterRegistry), new OrderAdmissionControl(properties, meterRegistry),
+                new InMemoryOrderStore(properties.getStore(), meterRegistry, Clock.systemUTC()),
+                new OrderIdGenerator(properties), new CustomerStatistics(meterRegistry),
+                new SlowOrderLog(properties), properties, meterRegistry);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        threads.resetPeakThreadCount();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        long peakHeap = heapBefore;
+
+        Semaphore window = new Semaphore(inFlight);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger rejected = new AtomicInteger();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            window.acquire();
+            long submitted = System.nanoTime();
+            service.processOrder(sampleOrder(i)).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    latencies.add(System.nanoTime() - submitted);
+                } else {
+                    rejected.incrementAndGet();
+                }
+                window.release();
+            });
+            if ((i & 255) == 0) {
+                peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+            }
+        }
+        window.acquire(inFlight);
+        long elapsed = System.nanoTime() - start;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        long p99 = sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.99) - 1)];
+
+        System.out.printf("%-8s completed=%d rejected=%d throughput=%.0f orders/s p99=%d ms peakThreads=%d heapGrowth=%d KB%n",
+                mode,
+                sorted.length,
+                rejected.get(),
+                sorted.length / (elapsed / 1e9),
+                p99 / 1_000_000,
+                threads.getPeakThreadCount(),
+                (peakHeap - heapBefore) / 1024);
+    }
+
+    private static Order sampleOrder(int i) {
+        return Order.builder()
+                .customer("Customer " + i)
+                .amount(new BigDecimal("100.00"))
+                .items(List.of(Item.builder()
+                        .productId(1L)
+                        .name("Item")
+                        .quantity(2)
+                        .unitPrice(new BigDecimal("50.00"))
+                        .build()))
+                .build();
+    }
+}
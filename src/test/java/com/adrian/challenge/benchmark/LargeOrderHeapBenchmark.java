@@ -0,0 +1,120 @@
+package com.adrian.challenge.benchmark;
+
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.validators.OrderValidator;
+import com.adrian.challenge.validators.StreamingOrderReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.lang.ref.Reference;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap cost of reading and validating very large orders: binding the body to an {@link Order} and running
+ * {@link OrderValidator} (the {@code /processOrder} path) versus {@link StreamingOrderReader}
+ * (the {@code /processLargeOrder} path).
+ * <p>
+ * For each path it reports the bytes allocated per order, the bytes still reachable per order once it has been
+ * read (what an in-flight request holds until it is stored) and the peak heap while {@code inFlight} orders are
+ * held at once, as concurrent requests would.
+ * <p>
+ * Not a unit test: run it manually, e.g. with {@code -Xmx4g -XX:+UseParallelGC} for stable peaks.
+ * Arguments are the number of items per order and the number of orders in flight.
+ */
+public class LargeOrderHeapBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        byte[] body = mapper.writeValueAsBytes(OrderValidatorBenchmark.sampleOrder(itemCount));
+        System.out.printf("%d items per order, %.1f MB of JSON, %d orders in flight%n",
+                itemCount, body.length / 1e6, inFlight);
+
+        ObjectReader orderReader = mapper.readerFor(Order.class);
+        OrderValidator validator = new OrderValidator();
+        StreamingOrderReader streamingReader = new StreamingOrderReader(mapper.getFactory(), Clock.systemUTC());
+
+        HeapPath binding = () -> {
+            Order order = orderReader.readValue(new ByteArrayInputStream(body));
+            validator.validate(order);
+            return order;
+        };
+        HeapPath streaming = () -> streamingReader.read(new ByteArrayInputStream(body), body.length);
+
+        // Warm both paths up so the JIT and class loading don't count
+        for (int i = 0; i < 5; i++) {
+            binding.read();
+            streaming.read();
+        }
+        measure("bind + validate", binding, inFlight);
+        measure("streaming", streaming, inFlight);
+    }
+
+    private static void measure(String name, HeapPath path, int inFlight) throws Exception {
+        long baseline = settledHeap();
+        resetPeaks();
+
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        List<Object> held = new ArrayList<>(inFlight);
+        for (int i = 0; i < inFlight; i++) {
+            held.add(path.read());
+        }
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long peak = peakHeap() - baseline;
+        long retained = settledHeap() - baseline;
+
+        System.out.printf("%-16s allocated %7.1f MB/order, retained %7.1f MB/order, peak heap %8.1f MB%n",
+                name, allocated / 1e6 / inFlight, retained / 1e6 / inFlight, peak / 1e6);
+        Reference.reachabilityFence(held);
+    }
+
+    private static long settledHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            used += pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    private static void resetPeaks() {
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    /**
+     * Sum of the per-pool peaks, an upper bound of the real peak since pools may peak at different times.
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+    }
+
+    @FunctionalInterface
+    private interface HeapPath {
+        Object read() throws Exception;
+    }
+}
@@ -0,0 +1,47 @@
+package com.adrian.challenge.benchmark;
+
+import com.adrian.challenge.services.OrderIdGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Throughput of {@link OrderIdGenerator#nextId()} with an increasing number of threads.
+ * <p>
+ * Not a unit test: run it manually. The first argument is the number of IDs generated per thread.
+ */
+public class OrderIdGeneratorBenchmark {
+
+    private static volatile long sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int idsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        OrderIdGenerator generator = new OrderIdGenerator(1, System::currentTimeMillis);
+
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            run(generator, 1, idsPerThread); // warm-up
+            long elapsed = run(generator, threads, idsPerThread);
+            System.out.printf("%2d threads: %.1f M ids/s%n", threads, threads * (double) idsPerThread / elapsed);
+        }
+    }
+
+    private static long run(OrderIdGenerator generator, int threads, int idsPerThread) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                long last = 0;
+                for (int i = 0; i < idsPerThread; i++) {
+                    last = generator.nextId();
+                }
+                sink = last;
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return (System.nanoTime() - start) / 1_000; // microseconds, so ids per microsecond = M ids/s
+    }
+}
@@ -0,0 +1,95 @@
+package com.adrian.challenge.benchmark;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.repositories.InMemoryOrderStore;
+import com.adrian.challenge.repositories.JournalOrderStore;
+import com.adrian.challenge.repositories.OrderStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.FileSystemUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append throughput of {@link JournalOrderStore} versus the in-memory store alone, and the time needed to
+ * recover the journal on startup.
+ * <p>
+ * Not a unit test: run it manually, e.g. with {@code -Xmx4g}. Arguments are the number of orders
+ * (10000000 for the 10M recovery figure) and the number of writer threads.
+ */
+public class OrderJournalBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        Path directory = Files.createTempDirectory("order-journal-benchmark");
+
+        OrderProperties.Store config = new OrderProperties.Store();
+        config.setMaxSize(orders);
+        config.getJournal().setDirectory(directory.toString());
+
+        InMemoryOrderStore memoryOnly = new InMemoryOrderStore(config, new SimpleMeterRegistry(), Clock.systemUTC());
+        report("no persistence", orders, append(memoryOnly, orders, threads));
+
+        try (JournalOrderStore journal = open(config)) {
+            report("journal", orders, append(journal, orders, threads));
+        }
+
+        long start = System.nanoTime();
+        try (JournalOrderStore recovered = open(config)) {
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("recovery: %d orders in %d ms (%.0f orders/s)%n",
+                    recovered.size(), elapsed / 1_000_000, recovered.size() / (elapsed / 1e9));
+        }
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    private static JournalOrderStore open(OrderProperties.Store config) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new JournalOrderStore(new InMemoryOrderStore(config, meterRegistry, Clock.systemUTC()),
+                config, meterRegistry, Clock.systemUTC());
+    }
+
+    private static long append(OrderStore store, int orders, int threads) throws InterruptedException {
+        AtomicLong nextId = new AtomicLong();
+        List<Thread> writers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread writer = new Thread(() -> {
+                long id;
+                while ((id = nextId.getAndIncrement()) < orders) {
+                    store.save(sampleOrder(id));
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, int orders, long elapsedNanos) {
+        System.out.printf("%-15s %d orders in %d ms (%.0f orders/s)%n",
+                name, orders, elapsedNanos / 1_000_000, orders / (elapsedNanos / 1e9));
+    }
+
+    private static Order sampleOrder(long id) {
+        return Order.builder()
+                .id(id)
+                .customer("Customer " + (id % 10_000))
+                .amount(new BigDecimal("150.50"))
+                .items(List.of(
+                        Item.builder().productId(1L).name("Product 1").quantity(2).unitPrice(new BigDecimal("50.00")).build(),
+                        Item.builder().productId(2L).name("Product 2").quantity(1).unitPrice(new BigDecimal("50.50")).build()))
+                .build();
+    }
+}
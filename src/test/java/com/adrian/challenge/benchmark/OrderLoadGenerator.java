@@ -0,0 +1,243 @@
+package com.adrian.challenge.benchmark;
+
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives {@code POST /processOrder} of a running application with synthetic orders at a fixed request rate and
+ * reports latency percentiles and throughput.
+ * <p>
+ * Every request has an intended start time on the fixed-rate schedule and its latency is measured from that time,
+ * not from when it was actually sent, so stalls of the server are charged to every request they delay
+ * (coordinated omission correction). The service time, measured from the actual send, is reported next to it.
+ * <ul>
+ *     <li>{@code open}: requests are sent on schedule whatever the number of outstanding ones, like independent
+ *     clients would.</li>
+ *     <li>{@code closed}: {@code concurrency} clients share the schedule and each waits for its response before
+ *     sending the next request. Clients don't hold a thread while they wait, so {@code --concurrency=10000} keeps
+ *     ten thousand connections open against the server.</li>
+ * </ul>
+ * Not a unit test: start the application and run {@code ./mvnw -Ploadtest test -Dloadtest.args="--rate=500"}.
+ * Options (defaults in brackets): {@code --url} [http://localhost:8080], {@code --mode} [open],
+ * {@code --rate} requests/s [100], {@code --concurrency} [50], {@code --duration} [30s], {@code --warmup} [5s],
+ * {@code --items} item count range [1-10].
+ */
+public class OrderLoadGenerator {
+
+    private static final int PAYLOADS = 1_024;
+
+    private final HttpClient client;
+    private final URI uri;
+    private final List<String> payloads;
+    private final long intervalNanos;
+    private final long measureFromNanos;
+    private final long endNanos;
+
+    private final Histogram latency = new ConcurrentHistogram(3);
+    private final Histogram serviceTime = new ConcurrentHistogram(3);
+    private final Map<String, LongAdder> outcomes = new HashMap<>();
+
+    private OrderLoadGenerator(HttpClient client, URI uri, List<String> payloads, double rate, long startNanos,
+                               Duration warmup, Duration duration) {
+        this.client = client;
+        this.uri = uri;
+        this.payloads = payloads;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        this.measureFromNanos = startNanos + warmup.toNanos();
+        this.endNanos = measureFromNanos + duration.toNanos();
+        for (String outcome : List.of("2xx", "429", "4xx", "5xx", "error")) {
+            outcomes.put(outcome, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String mode = options.getOrDefault("mode", "open");
+        double rate = Double.parseDouble(options.getOrDefault("rate", "100"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "50"));
+        Duration duration = parseDuration(options.getOrDefault("duration", "30s"));
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "5s"));
+        String[] items = options.getOrDefault("items", "1-10").split("-");
+        int minItems = Integer.parseInt(items[0]);
+        int maxItems = Integer.parseInt(items[items.length - 1]);
+        URI uri = URI.create(options.getOrDefault("url", "http://localhost:8080") + "/processOrder");
+
+        ExecutorService httpExecutor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(httpExecutor)
+                .build();
+
+        System.out.printf("%s loop, %.0f req/s for %s after %s warmup, %d-%d items per order, against %s%n",
+                mode, rate, duration, warmup, minItems, maxItems, uri);
+        OrderLoadGenerator generator = new OrderLoadGenerator(client, uri, syntheticPayloads(minItems, maxItems), rate,
+                System.nanoTime(), warmup, duration);
+        switch (mode) {
+            case "open" -> generator.runOpenLoop();
+            case "closed" -> generator.runClosedLoop(concurrency);
+            default -> throw new IllegalArgumentException("Unknown mode " + mode + ", expected open or closed");
+        }
+        generator.report();
+        httpExecutor.shutdownNow();
+    }
+
+    private void runOpenLoop() {
+        List<CompletableFuture<Void>> outstanding = new ArrayList<>();
+        long first = System.nanoTime();
+        for (long i = 0; ; i++) {
+            long intended = first + i * intervalNanos;
+            if (intended >= endNanos) {
+                break;
+            }
+            sleepUntil(intended);
+            outstanding.add(send(intended, i));
+            if (outstanding.size() >= 10_000) {
+                outstanding.removeIf(CompletableFuture::isDone);
+            }
+        }
+        CompletableFuture.allOf(outstanding.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void runClosedLoop(int concurrency) {
+        // Clients are chains of callbacks rather than threads, so thousands of them can hold a connection open each
+        List<CompletableFuture<Void>> clients = new ArrayList<>(concurrency);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        long first = System.nanoTime();
+        for (int c = 0; c < concurrency; c++) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            // Client c owns every concurrency-th slot of the shared schedule
+            sendNext(scheduler, first, c, concurrency, done);
+            clients.add(done);
+        }
+        CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+        scheduler.shutdownNow();
+    }
+
+    private void sendNext(ScheduledExecutorService scheduler, long first, long slot, int concurrency,
+                          CompletableFuture<Void> done) {
+        long intended = first + slot * intervalNanos;
+        if (intended >= endNanos) {
+            done.complete(null);
+            return;
+        }
+        Runnable next = () -> send(intended, slot)
+                .thenRun(() -> sendNext(scheduler, first, slot + concurrency, concurrency, done));
+        long delay = intended - System.nanoTime();
+        if (delay > 0) {
+            scheduler.schedule(next, delay, TimeUnit.NANOSECONDS);
+        } else {
+            next.run();
+        }
+    }
+
+    private CompletableFuture<Void> send(long intendedNanos, long sequence) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(payloads.get((int) (sequence % payloads.size()))))
+                .build();
+        long sentNanos = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    long now = System.nanoTime();
+                    if (intendedNanos >= measureFromNanos) {
+                        latency.recordValue(now - intendedNanos);
+                        serviceTime.recordValue(now - sentNanos);
+                        outcomes.get(failure != null ? "error" : outcome(response.statusCode())).increment();
+                    }
+                    return null;
+                });
+    }
+
+    private static String outcome(int status) {
+        if (status == 429) {
+            return "429";
+        }
+        return status / 100 == 2 ? "2xx" : status / 100 == 4 ? "4xx" : "5xx";
+    }
+
+    private void report() {
+        long elapsedNanos = System.nanoTime() - measureFromNanos;
+        long requests = latency.getTotalCount();
+        System.out.printf("%d requests in %.1f s, throughput %.1f req/s%n",
+                requests, elapsedNanos / 1e9, requests / (elapsedNanos / 1e9));
+        outcomes.forEach((outcome, count) -> System.out.printf("  %-5s %d%n", outcome, count.sum()));
+        System.out.printf("%-40s %10s %10s %10s %10s%n", "latency (ms)", "p50", "p99", "p99.9", "max");
+        print("corrected (from intended start)", latency);
+        print("service time (from actual send)", serviceTime);
+    }
+
+    private static void print(String name, Histogram histogram) {
+        System.out.printf("%-40s %10.2f %10.2f %10.2f %10.2f%n", name,
+                histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6, histogram.getMaxValue() / 1e6);
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static List<String> syntheticPayloads(int minItems, int maxItems) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Random random = new Random(42);
+        List<String> payloads = new ArrayList<>(PAYLOADS);
+        for (int p = 0; p < PAYLOADS; p++) {
+            int itemCount = minItems + random.nextInt(maxItems - minItems + 1);
+            List<Item> items = new ArrayList<>(itemCount);
+            BigDecimal amount = BigDecimal.ZERO;
+            for (int i = 0; i < itemCount; i++) {
+                BigDecimal unitPrice = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+                int quantity = 1 + random.nextInt(5);
+                items.add(Item.builder().productId((long) i + 1).name("Product " + (i + 1)).quantity(quantity).unitPrice(unitPrice).build());
+                amount = amount.add(unitPrice.multiply(BigDecimal.valueOf(quantity)));
+            }
+            payloads.add(mapper.writeValueAsString(Order.builder()
+                    .customer("Customer " + random.nextInt(10_000))
+                    .items(items)
+                    .amount(amount)
+                    .build()));
+        }
+        return payloads;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static Duration parseDuration(String value) {
+        return Duration.parse("PT" + value.toUpperCase());
+    }
+}
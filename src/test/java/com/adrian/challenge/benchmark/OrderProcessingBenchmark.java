@@ -0,0 +1,79 @@
+package com.adrian.challenge.benchmark;
+
+import com.adrian.challenge.configs.AsyncConfig;
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.models.ProcessedOrder;
+import com.adrian.challenge.repositories.InMemoryOrderStore;
+import com.adrian.challenge.services.CustomerStatistics;
+import com.adrian.challenge.services.OrderAdmissionControl;
+import com.adrian.challenge.services.OrderIdGenerator;
+import com.adrian.challenge.services.OrderMetrics;
+import com.adrian.challenge.services.OrderService;
+import com.adrian.challenge.services.SlowOrderLog;
+import com.adrian.challenge.validators.OrderValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link OrderService#processOrder(Order)} end to end (admission, executor hand-off, validation,
+ * ID generation, storage and metrics) with the simulated business latency disabled.
+ * Run with {@code mvn -Pbenchmark test}, add {@code -Djmh.args="OrderProcessing -t 8"} for concurrent callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderProcessingBenchmark {
+
+    private AsyncTaskExecutor executor;
+    private OrderService service;
+
+    @State(Scope.Thread)
+    public static class Caller {
+        Order order = OrderValidatorBenchmark.sampleOrder(10);
+    }
+
+    @Setup
+    public void setUp() {
+        OrderProperties properties = new OrderProperties();
+        properties.getProcessing().setMinLatency(Duration.ZERO);
+        properties.getProcessing().setMaxLatency(Duration.ZERO);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        executor = new AsyncConfig().orderExecutor(properties, meterRegistry);
+        service = new OrderService(new OrderMetrics(meterRegistry), new OrderValidator(), executor,
+                new OrderAdmissionControl(properties, meterRegistry),
+                new InMemoryOrderStore(properties.getStore(), meterRegistry, Clock.systemUTC()),
+                new OrderIdGenerator(properties), new CustomerStatistics(meterRegistry),
+                new SlowOrderLog(properties), properties, meterRegistry);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.close();
+        ((ThreadPoolTaskExecutor) executor).shutdown();
+    }
+
+    @Benchmark
+    public ProcessedOrder processOrder(Caller caller) {
+        return service.processOrder(caller.order).join();
+    }
+}
@@ -0,0 +1,68 @@
+package com.adrian.challenge.benchmark;
+
+import com.adrian.challenge.models.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of Jackson (de)serialization of {@link Order} with the same {@link ObjectMapper} defaults Spring
+ * Boot configures for the controllers, as JSON and as Smile, the binary format {@code /processOrder} also accepts.
+ * The size of each encoding is printed once per trial. Run with {@code mvn -Pbenchmark test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderSerializationBenchmark {
+
+    @Param({"1", "10", "100"})
+    int itemCount;
+
+    @Param({"json", "smile"})
+    String format;
+
+    private Order order;
+    private byte[] body;
+    private ObjectReader reader;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = "smile".equals(format)
+                ? Jackson2ObjectMapperBuilder.smile().build()
+                : Jackson2ObjectMapperBuilder.json().build();
+        reader = mapper.readerFor(Order.class);
+        writer = mapper.writerFor(Order.class);
+        order = OrderValidatorBenchmark.sampleOrder(itemCount);
+        body = writer.writeValueAsBytes(order);
+        System.out.printf("%n%s, %d items: %d bytes per order%n", format, itemCount, body.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public Order deserialize() throws IOException {
+        return reader.readValue(body);
+    }
+}
@@ -0,0 +1,68 @@
+package com.adrian.challenge.benchmark;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.repositories.InMemoryOrderStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Retained heap of 1M processed orders in the former {@code ConcurrentHashMap<Long, Order>} versus
+ * {@link InMemoryOrderStore}.
+ * <p>
+ * Not a unit test: run it manually with a large enough heap, e.g. {@code -Xmx4g}.
+ * The first argument is the number of orders.
+ */
+public class OrderStoreMemoryBenchmark {
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long baseline = usedHeap();
+        Map<Long, Order> map = new ConcurrentHashMap<>();
+        for (int i = 0; i < orders; i++) {
+            Order order = sampleOrder(i);
+            map.put(order.getId(), order);
+        }
+        long mapBytes = usedHeap() - baseline;
+        System.out.printf("ConcurrentHashMap<Long, Order>: %d orders, %d MB, %d bytes/order%n",
+                map.size(), mapBytes >> 20, mapBytes / orders);
+        map = null;
+
+        baseline = usedHeap();
+        OrderProperties.Store config = new OrderProperties.Store();
+        config.setMaxSize(orders);
+        InMemoryOrderStore store = new InMemoryOrderStore(config, new SimpleMeterRegistry(), Clock.systemUTC());
+        for (int i = 0; i < orders; i++) {
+            store.save(sampleOrder(i));
+        }
+        long storeBytes = usedHeap() - baseline;
+        System.out.printf("InMemoryOrderStore:             %d orders, %d MB, %d bytes/order%n",
+                store.size(), storeBytes >> 20, storeBytes / orders);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static Order sampleOrder(int i) {
+        return Order.builder()
+                .id((long) i)
+                .customer("Customer " + (i % 10_000))
+                .amount(new BigDecimal("150.50"))
+                .items(List.of(
+                        Item.builder().productId(1L).name("Product 1").quantity(2).unitPrice(new BigDecimal("50.00")).build(),
+                        Item.builder().productId(2L).name("Product 2").quantity(1).unitPrice(new BigDecimal("50.50")).build()))
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.adrian.challenge.benchmark;
+
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.validators.OrderValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link OrderValidator#validate(Order)} by number of items. Run with {@code mvn -Pbenchmark test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderValidatorBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    int itemCount;
+
+    private final OrderValidator validator = new OrderValidator();
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        order = sampleOrder(itemCount);
+    }
+
+    @Benchmark
+    public Order validate() {
+        validator.validate(order);
+        return order;
+    }
+
+    static Order sampleOrder(int itemCount) {
+        List<Item> items = new ArrayList<>(itemCount);
+        BigDecimal amount = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            BigDecimal unitPrice = BigDecimal.valueOf(1_000 + i * 37L, 2);
+            int quantity = 1 + i % 5;
+            items.add(Item.builder().productId((long) i).name("Product " + i).quantity(quantity).unitPrice(unitPrice).build());
+            amount = amount.add(unitPrice.multiply(BigDecimal.valueOf(quantity)));
+        }
+        return Order.builder().customer("Customer " + itemCount).items(items).amount(amount).build();
+    }
+}
@@ -0,0 +1,175 @@
+package com.adrian.challenge.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures how long a freshly launched node takes to process its first order, for the packaged jar as it was
+ * and for the artifacts of the {@code fast-startup} profile.
+ * <p>
+ * Each run launches the application on a free port and sends {@code POST /processOrder} every few milliseconds
+ * until one is answered with 201, as a load balancer would as soon as the port opens. It reports the startup time
+ * Spring Boot logs, the time from launch to the first processed order, and the latency of that first order.
+ * The simulated business logic latency is disabled so only the application itself is measured.
+ * <p>
+ * Not a unit test: build with {@code ./mvnw -Pfast-startup package -DskipTests}, then run
+ * {@code java -cp target/test-classes com.adrian.challenge.benchmark.StartupBenchmark}. Options (defaults in
+ * brackets): {@code --runs} per variant [5], {@code --target} build directory [target].
+ */
+public class StartupBenchmark {
+
+    private static final String JAR = "challenge-0.0.1-SNAPSHOT.jar";
+    private static final String ORDER = """
+            {"customer":"Startup","amount":30.00,"items":[\
+            {"productId":1,"name":"Product 1","quantity":2,"unitPrice":10.00},\
+            {"productId":2,"name":"Product 2","quantity":1,"unitPrice":10.00}]}""";
+    private static final Pattern STARTED = Pattern.compile("Started \\w+ in ([0-9.]+) seconds");
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private record Variant(String name, List<String> command) {
+    }
+
+    private record Run(double startedMillis, double firstOrderMillis, double firstOrderLatencyMillis) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        Path target = Path.of(options.getOrDefault("target", "target"));
+        String jar = target.resolve(JAR).toString();
+        Path fastStartup = target.resolve("fast-startup");
+        if (!Files.exists(fastStartup.resolve("challenge.jsa"))) {
+            throw new IllegalStateException("No CDS archive in " + fastStartup + ", build with ./mvnw -Pfast-startup package");
+        }
+
+        List<Variant> variants = List.of(
+                new Variant("jar", List.of("-jar", jar)),
+                new Variant("jar + warmup", List.of("-jar", jar, "--orders.warmup.enabled=true")),
+                new Variant("AOT + CDS + warmup", List.of(
+                        "-XX:SharedArchiveFile=" + fastStartup.resolve("challenge.jsa"), "-Xlog:cds=off",
+                        "-Dspring.aot.enabled=true", "-Dspring.profiles.active=fast-startup",
+                        "-jar", fastStartup.resolve(JAR).toString())));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        System.out.printf("%d runs per variant, medians%n", runs);
+        System.out.printf("%-24s %14s %18s %22s%n", "variant", "started (ms)", "first order (ms)", "first order latency (ms)");
+        for (Variant variant : variants) {
+            List<Run> results = new ArrayList<>(runs);
+            for (int i = 0; i < runs; i++) {
+                results.add(run(client, variant));
+            }
+            System.out.printf("%-24s %14.0f %18.0f %22.1f%n", variant.name(),
+                    median(results.stream().mapToDouble(Run::startedMillis).toArray()),
+                    median(results.stream().mapToDouble(Run::firstOrderMillis).toArray()),
+                    median(results.stream().mapToDouble(Run::firstOrderLatencyMillis).toArray()));
+        }
+    }
+
+    private static Run run(HttpClient client, Variant variant) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        command.addAll(variant.command());
+        command.add("--server.port=" + port);
+        command.add("--orders.processing.max-latency=0");
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/processOrder"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(ORDER))
+                .build();
+
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        CompletableFuture<Double> started = new CompletableFuture<>();
+        Thread reader = new Thread(() -> readOutput(process, started));
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            while (System.nanoTime() - launched < TIMEOUT_NANOS) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(variant.name() + " exited with " + process.exitValue());
+                }
+                long sent = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 201) {
+                        long now = System.nanoTime();
+                        return new Run(started.get(10, TimeUnit.SECONDS), (now - launched) / 1e6, (now - sent) / 1e6);
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                TimeUnit.NANOSECONDS.sleep(POLL_INTERVAL_NANOS);
+            }
+            throw new IllegalStateException(variant.name() + " processed no order within " + Duration.ofNanos(TIMEOUT_NANOS));
+        } finally {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Completes {@code started} with the startup time logged by Spring Boot, and keeps discarding the output so the
+     * application never blocks on a full pipe.
+     */
+    private static void readOutput(Process process, CompletableFuture<Double> started) {
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                Matcher matcher = STARTED.matcher(line);
+                if (!started.isDone() && matcher.find()) {
+                    started.complete(Double.parseDouble(matcher.group(1)) * 1_000);
+                }
+            }
+        } catch (IOException e) {
+            started.completeExceptionally(e);
+        }
+        started.complete(Double.NaN);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double median(double[] values) {
+        Arrays.sort(values);
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
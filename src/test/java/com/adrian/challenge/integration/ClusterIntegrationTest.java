@@ -0,0 +1,257 @@
+package com.adrian.challenge.integration;
+
+import com.adrian.challenge.ChallengeApplication;
+import com.adrian.challenge.cluster.ClusterClient;
+import com.adrian.challenge.cluster.ClusterMembership;
+import com.adrian.challenge.cluster.ConsistentHashRing;
+import com.adrian.challenge.repositories.CompactOrder;
+import com.adrian.challenge.repositories.OrderRecordCodec;
+import com.adrian.challenge.repositories.OrderStore;
+import com.adrian.challenge.services.CustomerStatistics;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two nodes of a cluster started on localhost. The second node only starts after the first one processed an order
+ * of one of its customers, so the first one has to hand it over.
+ */
+class ClusterIntegrationTest {
+
+    private static final HttpClient http = HttpClient.newHttpClient();
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String SECRET = "cluster-test-secret";
+
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+    private static String firstUrl;
+    private static String secondUrl;
+    /** Customer of the second node, ordered from the first one while the second was down. */
+    private static String handedOverCustomer;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        int firstPort = freePort();
+        int secondPort = freePort();
+        firstUrl = "http://localhost:" + firstPort;
+        secondUrl = "http://localhost:" + secondPort;
+
+        first = startNode(firstPort, 1);
+        handedOverCustomer = customerOf(secondUrl, "Handed over");
+        assertEquals(201, processOrder(firstUrl, handedOverCustomer).statusCode());
+        second = startNode(secondPort, 2);
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        if (second != null) {
+            second.close();
+        }
+        if (first != null) {
+            first.close();
+        }
+    }
+
+    @Test
+    void shouldHandOrdersOverToANodeThatJoins() {
+        await().atMost(10, TimeUnit.SECONDS).until(() ->
+                second.getBean(CustomerStatistics.class).find(handedOverCustomer).isPresent());
+
+        assertEquals(1, second.getBean(CustomerStatistics.class).find(handedOverCustomer).orElseThrow().getOrderCount());
+    }
+
+    @Test
+    void shouldForwardOrderToTheNodeOwningItsCustomer() throws Exception {
+        // Given
+        awaitMembers(first, 2);
+        String customer = customerOf(secondUrl, "Forwarded");
+
+        // When
+        HttpResponse<String> response = processOrder(firstUrl, customer);
+
+        // Then
+        assertEquals(201, response.statusCode());
+        JsonNode body = mapper.readTree(response.body());
+        assertTrue(body.get("orderId").asText().contains("processed successfully"));
+        assertTrue(second.getBean(OrderStore.class).findById(body.get("id").asLong()).isPresent());
+        assertEquals(1, second.getBean(CustomerStatistics.class).find(customer).orElseThrow().getOrderCount());
+        assertTrue(first.getBean(CustomerStatistics.class).find(customer).isEmpty());
+    }
+
+    @Test
+    void shouldReportTheIdGivenByTheOwnerForForwardedBatchOrders() throws Exception {
+        // Given
+        awaitMembers(first, 2);
+        String customer = customerOf(secondUrl, "Batch");
+
+        // When
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(firstUrl + "/processOrders"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("[" + orderJson(customer) + "]"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertEquals(200, response.statusCode());
+        JsonNode result = mapper.readTree(response.body().lines().findFirst().orElseThrow());
+        assertEquals("success", result.get("status").asText());
+        long orderId = result.get("orderId").asLong();
+        assertEquals(customer, second.getBean(OrderStore.class).findById(orderId).orElseThrow().getCustomer());
+        assertTrue(first.getBean(OrderStore.class).findById(orderId).isEmpty());
+    }
+
+    @Test
+    void shouldAnswerStatsFromTheNodeOwningTheCustomer() throws Exception {
+        // Given
+        awaitMembers(first, 2);
+        String customer = customerOf(secondUrl, "Stats");
+        assertEquals(201, processOrder(secondUrl, customer).statusCode());
+
+        // When
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                        URI.create(firstUrl + "/customers/" + customer.replace(" ", "%20") + "/stats")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertEquals(200, response.statusCode());
+        JsonNode stats = mapper.readTree(response.body());
+        assertEquals(customer, stats.get("customer").asText());
+        assertEquals(1, stats.get("orderCount").asLong());
+    }
+
+    @Test
+    void shouldRefuseHandoffsFromOutsideTheCluster() throws Exception {
+        // Given
+        byte[] orders = handoffOf(OrderRecordCodec.encode(CompactOrder.builder(Long.MAX_VALUE - 1,
+                        customerOf(secondUrl, "Refused"), 1_000L, System.currentTimeMillis(), 1)
+                .addItem(1L, "Product 1", 1, 1_000L)
+                .build()));
+
+        // When
+        int unknownNode = handOff("http://localhost:1", SECRET, orders).statusCode();
+        int missingSecret = handOff(firstUrl, null, orders).statusCode();
+
+        // Then
+        assertEquals(403, unknownNode);
+        assertEquals(403, missingSecret);
+        assertTrue(second.getBean(OrderStore.class).findById(Long.MAX_VALUE - 1).isEmpty());
+    }
+
+    @Test
+    void shouldRejectMalformedHandoffs() throws Exception {
+        // Given
+        byte[] truncated = ByteBuffer.allocate(8).putInt(1_000).putInt(0).array();
+        byte[] hugeCustomer = handoffOf(ByteBuffer.allocate(3 * Long.BYTES + Integer.BYTES)
+                .putLong(1L).putLong(0L).putLong(100L).putInt(Integer.MAX_VALUE).array());
+
+        // When & Then
+        assertEquals(400, handOff(firstUrl, SECRET, truncated).statusCode());
+        assertEquals(400, handOff(firstUrl, SECRET, hugeCustomer).statusCode());
+        assertEquals(400, handOff(firstUrl, SECRET, new byte[]{1, 2}).statusCode());
+    }
+
+    @Test
+    void shouldNotChangePeersThroughTheActuatorByDefault() throws Exception {
+        // Given
+        awaitMembers(second, 2);
+
+        // When
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(secondUrl + "/actuator/cluster"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"peers\":\"" + secondUrl + "\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertNotEquals(2, response.statusCode() / 100);
+        assertEquals(List.of(firstUrl), second.getBean(ClusterMembership.class).peers());
+    }
+
+    private static ConfigurableApplicationContext startNode(int port, int nodeId) {
+        return new SpringApplicationBuilder(ChallengeApplication.class).run(
+                "--server.port=" + port,
+                "--orders.id.node-id=" + nodeId,
+                "--orders.cluster.enabled=true",
+                "--orders.cluster.self=http://localhost:" + port,
+                "--orders.cluster.peers=" + firstUrl + "," + secondUrl,
+                "--orders.cluster.heartbeat-interval=100ms",
+                "--orders.cluster.secret=" + SECRET,
+                "--orders.processing.max-latency=0");
+    }
+
+    private static void awaitMembers(ConfigurableApplicationContext node, int members) {
+        await().atMost(10, TimeUnit.SECONDS).until(() ->
+                node.getBean(ClusterMembership.class).ring().nodes().size() == members);
+    }
+
+    /**
+     * A new customer that {@code owner} owns once both nodes are up.
+     */
+    private static String customerOf(String owner, String prefix) {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(firstUrl, secondUrl), 256);
+        for (int i = 0; ; i++) {
+            String customer = prefix + " " + System.nanoTime() + " " + i;
+            if (ring.ownerOf(customer).equals(owner)) {
+                return customer;
+            }
+        }
+    }
+
+    private static HttpResponse<String> handOff(String from, String secret, byte[] orders) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(secondUrl + ClusterClient.ORDERS_PATH))
+                .header(ClusterClient.FORWARDED, from)
+                .header("Content-Type", "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(orders));
+        if (secret != null) {
+            request.header(ClusterClient.SECRET, secret);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * A handoff body holding {@code record}, prefixed with its length.
+     */
+    private static byte[] handoffOf(byte[] record) {
+        return ByteBuffer.allocate(Integer.BYTES + record.length).putInt(record.length).put(record).array();
+    }
+
+    private static HttpResponse<String> processOrder(String node, String customer) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(node + "/processOrder"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(orderJson(customer)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String orderJson(String customer) {
+        return """
+                {"customer":"%s","amount":30.00,"items":[\
+                {"productId":1,"name":"Product 1","quantity":2,"unitPrice":10.00},\
+                {"productId":2,"name":"Product 2","quantity":1,"unitPrice":10.00}]}""".formatted(customer);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.adrian.challenge.integration;
+
+import com.adrian.challenge.ChallengeApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Restarts the application on the same journal, which has to bring back the stored orders and the customer stats
+ * derived from them.
+ */
+class JournalRecoveryIntegrationTest {
+
+    private static final HttpClient http = HttpClient.newHttpClient();
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path journal;
+
+    @Test
+    void restart_shouldRebuildCustomerStatsFromTheJournal() throws Exception {
+        // Given
+        try (ConfigurableApplicationContext node = startNode()) {
+            assertEquals(201, processOrder(node, "Customer A").statusCode());
+            assertEquals(201, processOrder(node, "Customer A").statusCode());
+        }
+
+        // When
+        try (ConfigurableApplicationContext node = startNode()) {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                            URI.create(url(node) + "/customers/Customer%20A/stats")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            // Then
+            assertEquals(200, response.statusCode());
+            JsonNode stats = mapper.readTree(response.body());
+            assertEquals(2, stats.get("orderCount").asLong());
+            assertEquals(0, new BigDecimal("60.00").compareTo(stats.get("totalAmount").decimalValue()));
+            assertEquals(4, stats.get("itemCount").asLong());
+        }
+    }
+
+    private ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(ChallengeApplication.class).run(
+                "--server.port=0",
+                "--orders.store.persistence=JOURNAL",
+                "--orders.store.journal.directory=" + journal,
+                "--orders.processing.max-latency=0");
+    }
+
+    private static String url(ConfigurableApplicationContext node) {
+        return "http://localhost:" + node.getEnvironment().getProperty("local.server.port");
+    }
+
+    private static HttpResponse<String> processOrder(ConfigurableApplicationContext node, String customer)
+            throws Exception {
+        String order = """
+                {"customer":"%s","amount":30.00,"items":[\
+                {"productId":1,"name":"Product 1","quantity":2,"unitPrice":10.00},\
+                {"productId":2,"name":"Product 2","quantity":1,"unitPrice":10.00}]}""".formatted(customer);
+        return http.send(HttpRequest.newBuilder(URI.create(url(node) + "/processOrder"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(order))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,58 @@
+package com.adrian.challenge.integration;
+
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "orders.admission.max-in-flight=0",
+        "orders.admission.max-queued=0",
+        "orders.admission.retry-after=3s"
+})
+@AutoConfigureMockMvc
+class OrderAdmissionIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    void shouldShedOrderWithTooManyRequestsWhenOverloaded() throws Exception {
+        // Given
+        Order order = Order.builder()
+                .customer("Test Customer")
+                .items(List.of(Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.0")).build()))
+                .amount(new BigDecimal("100.00"))
+                .build();
+
+        // When
+        MvcResult result = mockMvc.perform(post("/processOrder")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(order)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "3"));
+    }
+}
@@ -1,23 +1,42 @@
 package com.adrian.challenge.integration;
 
+import com.adrian.challenge.configs.SmileConfig;
 import com.adrian.challenge.models.Item;
 import com.adrian.challenge.models.Order;
+import com.adrian.challenge.repositories.CompactOrder;
+import com.adrian.challenge.repositories.OrderRecordCodec;
+import com.adrian.challenge.repositories.OrderStore;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -30,6 +49,9 @@ class OrderIntegrationTest {
     @Autowired
     private ObjectMapper mapper;
 
+    @Autowired
+    private OrderStore orderStore;
+
     @Test
     void shouldProcessOrderSuccessfully() throws Exception {
         // Given
@@ -100,6 +122,356 @@ class OrderIntegrationTest {
                .until(() -> futures.stream().allMatch(CompletableFuture::isDone));
     }
     
+    @Test
+    void shouldReplayResultWhenOrderIsRetriedWithSameIdempotencyKey() throws Exception {
+        // Given
+        Order order = createTestOrder("Idempotent Customer", new BigDecimal("100.00"), List.of(
+                Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.0")).build()));
+        String body = mapper.writeValueAsString(order);
+
+        // When
+        JsonNode first = processWithIdempotencyKey(body, "retry-key-1");
+        JsonNode retry = processWithIdempotencyKey(body, "retry-key-1");
+
+        // Then
+        assertEquals(first.get("orderId").asText(), retry.get("orderId").asText());
+        assertEquals(1, orderStore.findByCustomer("Idempotent Customer").size());
+    }
+
+    @Test
+    void shouldProcessOrderSentAndAnsweredInSmile() throws Exception {
+        // Given
+        SmileMapper smile = new SmileMapper();
+        Order order = createTestOrder("Smile Customer", new BigDecimal("12345678901234.56"), List.of(
+                Item.builder().productId(1L).name("item1").quantity(3).unitPrice(new BigDecimal("4115226300411.52")).build()));
+
+        // When
+        MvcResult pending = mockMvc.perform(post("/processOrder")
+                        .contentType(SmileConfig.APPLICATION_SMILE)
+                        .accept(SmileConfig.APPLICATION_SMILE)
+                        .content(smile.writeValueAsBytes(order)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(SmileConfig.APPLICATION_SMILE))
+                .andReturn();
+
+        // Then
+        assertEquals("success", smile.readTree(result.getResponse().getContentAsByteArray()).get("status").asText());
+        Order stored = orderStore.findByCustomer("Smile Customer").get(0);
+        assertEquals(new BigDecimal("12345678901234.56"), stored.getAmount());
+        assertEquals(new BigDecimal("4115226300411.52"), stored.getItems().get(0).getUnitPrice());
+    }
+
+    @Test
+    void shouldProcessLargeOrderReadItemByItem() throws Exception {
+        // Given
+        List<Item> items = new java.util.ArrayList<>();
+        for (long i = 1; i <= 1_000; i++) {
+            items.add(Item.builder().productId(i).name("item" + i).quantity(1).unitPrice(new BigDecimal("1.50")).build());
+        }
+        Order order = createTestOrder("Large Customer", new BigDecimal("1500.00"), items);
+
+        // When
+        MvcResult pending = mockMvc.perform(post("/processLargeOrder")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(order)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isCreated());
+
+        // Then
+        List<Order> stored = orderStore.findByCustomer("Large Customer");
+        assertEquals(1, stored.size());
+        assertEquals(1_000, stored.get(0).getItems().size());
+    }
+
+    @Test
+    void shouldRejectLargeOrderWithInvalidItem() throws Exception {
+        // Given
+        String body = "{\"customer\":\"c\",\"amount\":1.00,\"items\":[{\"productId\":1,\"name\":\"a\",\"quantity\":0,\"unitPrice\":1.00}]}";
+
+        // When
+        mockMvc.perform(post("/processLargeOrder")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenAmountDoesNotMatchItems() throws Exception {
+        // Given
+        Order order = createTestOrder("Customer A", new BigDecimal("150.00"), List.of(
+                Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.0")).build()));
+
+        // When
+        MvcResult pending = mockMvc.perform(post("/processOrder")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(order)))
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(startsWith("Mismatch between orderAmount")));
+    }
+
+    @Test
+    void shouldTimeOutOrderPastTheDeadlineOfItsRequest() throws Exception {
+        // Given
+        Order order = createTestOrder("Hurried Customer", new BigDecimal("100.00"), List.of(
+                Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.0")).build()));
+
+        // When
+        MvcResult pending = mockMvc.perform(post("/processOrder")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Request-Timeout", "1ms")
+                        .content(mapper.writeValueAsString(order)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isGatewayTimeout());
+        assertEquals(List.of(), orderStore.findByCustomer("Hurried Customer"));
+    }
+
+    @Test
+    void shouldRejectMalformedRequestTimeout() throws Exception {
+        Order order = createTestOrder("Customer A", new BigDecimal("100.00"), List.of(
+                Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.0")).build()));
+
+        mockMvc.perform(post("/processOrder")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Request-Timeout", "soon")
+                        .content(mapper.writeValueAsString(order)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnRunningStatsOfACustomer() throws Exception {
+        // Given
+        String customer = "Stats Customer " + System.nanoTime();
+        for (int i = 1; i <= 2; i++) {
+            Order order = createTestOrder(customer, new BigDecimal("150.50"), List.of(
+                    Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.00")).build(),
+                    Item.builder().productId(2L).name("item2").quantity(1).unitPrice(new BigDecimal("50.50")).build()));
+            processWithIdempotencyKey(mapper.writeValueAsString(order), customer + i);
+        }
+
+        // When
+        MvcResult pending = mockMvc.perform(get("/customers/{id}/stats", customer))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String content = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        JsonNode stats = mapper.readTree(content);
+        assertEquals(customer, stats.get("customer").asText());
+        assertEquals(2, stats.get("orderCount").asLong());
+        assertEquals(0, new BigDecimal("301.00").compareTo(stats.get("totalAmount").decimalValue()));
+        assertEquals(4, stats.get("itemCount").asLong());
+        assertTrue(stats.hasNonNull("lastOrderAt"));
+    }
+
+    @Test
+    void shouldListTheSlowestRecentOrdersWithTheirSteps() throws Exception {
+        // Given
+        Order order = createTestOrder("Slow Customer", new BigDecimal("100.00"), List.of(
+                Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.00")).build()));
+        processWithIdempotencyKey(mapper.writeValueAsString(order), "slow-" + System.nanoTime());
+
+        // When the order is logged, right after its response is completed
+        JsonNode slowOrders = await().atMost(5, TimeUnit.SECONDS).until(() -> mapper.readTree(
+                mockMvc.perform(get("/actuator/slowOrders"))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString()), orders -> !orders.isEmpty());
+
+        // Then
+        JsonNode slowest = slowOrders.get(0);
+        assertTrue(slowest.hasNonNull("outcome"));
+        assertTrue(slowest.get("totalMillis").asDouble() > 0);
+        assertTrue(slowest.get("steps").has("validation"));
+    }
+
+    @Test
+    void shouldReturnNotFoundForCustomerWithoutOrders() throws Exception {
+        MvcResult pending = mockMvc.perform(get("/customers/{id}/stats", "Unknown customer"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldPageThroughProcessedOrdersWithACursor() throws Exception {
+        // Given
+        String customer = "Paged Customer " + System.nanoTime();
+        long[] ids = new long[3];
+        for (int i = 0; i < ids.length; i++) {
+            Order order = createTestOrder(customer, new BigDecimal("100.00"), List.of(
+                    Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.00")).build()));
+            ids[i] = orderIdOf(processWithIdempotencyKey(mapper.writeValueAsString(order), customer + i));
+        }
+
+        // When
+        JsonNode first = mapper.readTree(mockMvc.perform(get("/orders")
+                        .param("cursor", String.valueOf(ids[0] - 1))
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        JsonNode second = mapper.readTree(mockMvc.perform(get("/orders")
+                        .param("cursor", first.get("nextCursor").asText())
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        // Then
+        assertEquals(2, first.get("orders").size());
+        assertEquals(ids[0], first.get("orders").get(0).get("id").asLong());
+        assertEquals(ids[1], first.get("orders").get(1).get("id").asLong());
+        assertEquals(ids[1], first.get("nextCursor").asLong());
+        assertEquals(ids[2], second.get("orders").get(0).get("id").asLong());
+        assertFalse(second.has("nextCursor"));
+    }
+
+    @Test
+    void shouldRejectPageLimitOutOfRange() throws Exception {
+        mockMvc.perform(get("/orders").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/orders").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldExportProcessedOrdersAsNdjson() throws Exception {
+        // Given
+        String customer = "Exported Customer " + System.nanoTime();
+        Order order = createTestOrder(customer, new BigDecimal("100.00"), List.of(
+                Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.00")).build()));
+        long id = orderIdOf(processWithIdempotencyKey(mapper.writeValueAsString(order), customer));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/orders")
+                        .param("cursor", String.valueOf(id - 1))
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        String content = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = content.split("\n");
+        JsonNode exported = mapper.readTree(lines[0]);
+        assertEquals(id, exported.get("id").asLong());
+        assertEquals(customer, exported.get("customer").asText());
+        long previous = id - 1;
+        for (String line : lines) {
+            long next = mapper.readTree(line).get("id").asLong();
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+
+    private JsonNode processWithIdempotencyKey(String body, String key) throws Exception {
+        MvcResult pending = mockMvc.perform(post("/processOrder")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", key)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return mapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    @Test
+    void shouldStreamOneResultPerOrderOfABatch() throws Exception {
+        // Given
+        Order valid = createTestOrder("Customer A", new BigDecimal("100.00"), List.of(
+                Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.0")).build()));
+        Order wrongAmount = createTestOrder("Customer B", new BigDecimal("999.00"), List.of(
+                Item.builder().productId(2L).name("item2").quantity(1).unitPrice(new BigDecimal("100.0")).build()));
+        Order missingCustomer = createTestOrder("", new BigDecimal("100.00"), List.of(
+                Item.builder().productId(3L).name("item3").quantity(1).unitPrice(new BigDecimal("100.0")).build()));
+        String body = mapper.writeValueAsString(valid) + "\n"
+                + mapper.writeValueAsString(wrongAmount) + "\n"
+                + mapper.writeValueAsString(missingCustomer) + "\n";
+
+        // When
+        MvcResult result = mockMvc.perform(post("/processOrders")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        String content = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Map<Integer, String> statusByIndex = new HashMap<>();
+        for (String line : content.split("\n")) {
+            JsonNode node = mapper.readTree(line);
+            statusByIndex.put(node.get("index").asInt(), node.get("status").asText());
+        }
+        assertEquals(Map.of(0, "success", 1, "error", 2, "error"), statusByIndex);
+    }
+
+    @Test
+    void shouldAcceptABatchAsJsonArray() throws Exception {
+        // Given
+        List<Order> orders = List.of(createTestOrder("Customer A", new BigDecimal("100.00"), List.of(
+                Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.0")).build())));
+
+        // When
+        MvcResult result = mockMvc.perform(post("/processOrders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(orders)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        String content = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("success", mapper.readTree(content.trim()).get("status").asText());
+    }
+
+    @Test
+    void shouldNotKeepHandedOverOrdersOutsideACluster() throws Exception {
+        // Given
+        Order order = createTestOrder("Handed Over Customer", new BigDecimal("10.00"), List.of(
+                Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("10.00")).build()));
+        order.setId(Long.MAX_VALUE);
+        byte[] record = OrderRecordCodec.encode(CompactOrder.from(order, System.currentTimeMillis()));
+        byte[] body = ByteBuffer.allocate(Integer.BYTES + record.length).putInt(record.length).put(record).array();
+
+        // When
+        MvcResult result = mockMvc.perform(post("/cluster/orders")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+        assertTrue(orderStore.findById(Long.MAX_VALUE).isEmpty());
+    }
+
+    /**
+     * The numeric ID in the {@code orderId} message of a processed order.
+     */
+    private static long orderIdOf(JsonNode response) {
+        return Long.parseLong(response.get("orderId").asText().replaceAll("\\D", ""));
+    }
+
     private Order createTestOrder(String customer, BigDecimal amount, List<Item> items) {
         return Order.builder()
                 .customer(customer)
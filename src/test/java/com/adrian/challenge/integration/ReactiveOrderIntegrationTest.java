@@ -0,0 +1,197 @@
+package com.adrian.challenge.integration;
+
+import com.adrian.challenge.configs.SmileConfig;
+import com.adrian.challenge.models.BatchOrderResult;
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+class ReactiveOrderIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    void shouldProcessOrderSuccessfully() {
+        // Given
+        Order order = createTestOrder("Reactive Customer", new BigDecimal("100.00"));
+
+        // When
+        webTestClient.mutate().responseTimeout(Duration.ofSeconds(5)).build()
+                .post().uri("/processOrder")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(order)
+                .exchange()
+                // Then
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("success");
+    }
+
+    @Test
+    void shouldProcessOrderSentAndAnsweredInSmile() throws Exception {
+        // Given
+        SmileMapper smile = new SmileMapper();
+        Order order = createTestOrder("Reactive Smile Customer", new BigDecimal("100.00"));
+
+        // When
+        byte[] response = webTestClient.mutate().responseTimeout(Duration.ofSeconds(5)).build()
+                .post().uri("/processOrder")
+                .contentType(SmileConfig.APPLICATION_SMILE)
+                .accept(SmileConfig.APPLICATION_SMILE)
+                .bodyValue(smile.writeValueAsBytes(order))
+                .exchange()
+                // Then
+                .expectStatus().isCreated()
+                .expectHeader().contentType(SmileConfig.APPLICATION_SMILE)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+        assertEquals("success", smile.readTree(response).get("status").asText());
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenOrderIsInvalid() {
+        // Given
+        Order order = createTestOrder("", new BigDecimal("100.00"));
+
+        // When
+        webTestClient.post().uri("/processOrder")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(order)
+                .exchange()
+                // Then
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.customer").isEqualTo("Customer ID is required");
+    }
+
+    @Test
+    void shouldStreamOneResultPerOrderOfABatch() throws Exception {
+        // Given
+        String body = mapper.writeValueAsString(createTestOrder("Customer A", new BigDecimal("100.00"))) + "\n"
+                + mapper.writeValueAsString(createTestOrder("Customer B", new BigDecimal("999.00"))) + "\n";
+
+        // When
+        List<BatchOrderResult> results = webTestClient.mutate().responseTimeout(Duration.ofSeconds(5)).build()
+                .post().uri("/processOrders")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BatchOrderResult.class)
+                .getResponseBody()
+                .collectSortedList(Comparator.comparingInt(BatchOrderResult::getIndex))
+                .block(Duration.ofSeconds(5));
+
+        // Then
+        assertEquals(2, results.size());
+        assertEquals(BatchOrderResult.SUCCESS, results.get(0).getStatus());
+        assertEquals(BatchOrderResult.ERROR, results.get(1).getStatus());
+    }
+
+    @Test
+    void shouldTimeOutOrderPastTheDeadlineOfItsRequest() {
+        webTestClient.post().uri("/processOrder")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Request-Timeout", "1ms")
+                .bodyValue(createTestOrder("Hurried Customer", new BigDecimal("100.00")))
+                .exchange()
+                .expectStatus().isEqualTo(504);
+    }
+
+    @Test
+    void shouldServeCustomerStats() {
+        // Given
+        String customer = "Reactive Stats Customer";
+        webTestClient.mutate().responseTimeout(Duration.ofSeconds(5)).build()
+                .post().uri("/processOrder")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(createTestOrder(customer, new BigDecimal("100.00")))
+                .exchange()
+                .expectStatus().isCreated();
+
+        // When
+        webTestClient.get().uri("/customers/{id}/stats", customer)
+                .exchange()
+                // Then
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.orderCount").isEqualTo(1)
+                .jsonPath("$.itemCount").isEqualTo(1);
+        webTestClient.get().uri("/customers/{id}/stats", "Unknown customer")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldNotAcceptHandedOverOrdersOutsideACluster() {
+        webTestClient.post().uri("/cluster/orders")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(new byte[]{0, 0, 0, 0})
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldListAndExportProcessedOrders() {
+        // Given
+        String customer = "Reactive Listed Customer";
+        long id = Long.parseLong(webTestClient.mutate().responseTimeout(Duration.ofSeconds(5)).build()
+                .post().uri("/processOrder")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(createTestOrder(customer, new BigDecimal("100.00")))
+                .exchange()
+                .expectStatus().isCreated()
+                .returnResult(Map.class)
+                .getResponseBody()
+                .blockFirst(Duration.ofSeconds(5))
+                .get("orderId").toString().replaceAll("\\D", ""));
+
+        // When
+        webTestClient.get().uri("/orders?cursor={cursor}&limit=1", id - 1)
+                .exchange()
+                // Then
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.orders[0].id").isEqualTo(id)
+                .jsonPath("$.orders[0].customer").isEqualTo(customer);
+        List<Order> exported = webTestClient.get().uri("/orders?cursor={cursor}", id - 1)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Order.class)
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(5));
+        assertEquals(id, exported.get(0).getId());
+    }
+
+    private Order createTestOrder(String customer, BigDecimal amount) {
+        return Order.builder()
+                .customer(customer)
+                .amount(amount)
+                .items(List.of(Item.builder().productId(1L).name("item1").quantity(1).unitPrice(new BigDecimal("100.0")).build()))
+                .build();
+    }
+}
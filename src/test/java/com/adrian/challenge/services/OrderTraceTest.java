@@ -0,0 +1,79 @@
+package com.adrian.challenge.services;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderTraceTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void end_whenOrderIsSampled_shouldEmitAnEventPerStep() throws Exception {
+        // Given
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(OrderStageEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+
+            // When
+            OrderTrace trace = new OrderTrace("Customer A", System.nanoTime(), 1);
+            for (OrderTrace.Step step : OrderTrace.Step.values()) {
+                trace.end(step);
+            }
+            recording.stop();
+            events = read(recording);
+        }
+
+        // Then
+        assertEquals(List.of("validation", "admission", "business_queue", "business", "storage_queue", "storage"),
+                events.stream().map(event -> event.getString("step")).toList());
+        long id = events.get(0).getLong("trace");
+        assertNotEquals(0, id);
+        assertTrue(events.stream().allMatch(event -> event.getLong("trace") == id));
+        assertTrue(events.stream().allMatch(event -> "Customer A".equals(event.getString("customer"))));
+    }
+
+    @Test
+    void end_whenOrderIsNotSampled_shouldOnlyRecordTheSteps() throws Exception {
+        // Given
+        List<RecordedEvent> events;
+        OrderTrace trace;
+        try (Recording recording = new Recording()) {
+            recording.enable(OrderStageEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+
+            // When
+            trace = new OrderTrace("Customer A", System.nanoTime(), 0);
+            trace.end(OrderTrace.Step.VALIDATION);
+            trace.end(OrderTrace.Step.ADMISSION);
+            recording.stop();
+            events = read(recording);
+        }
+
+        // Then
+        assertTrue(events.isEmpty());
+        assertEquals(List.of(OrderTrace.Step.VALIDATION, OrderTrace.Step.ADMISSION), List.copyOf(trace.durations().keySet()));
+        assertTrue(trace.endOf(OrderTrace.Step.ADMISSION) >= trace.endOf(OrderTrace.Step.VALIDATION));
+        assertEquals(0, trace.endOf(OrderTrace.Step.BUSINESS));
+    }
+
+    private List<RecordedEvent> read(Recording recording) throws Exception {
+        Path file = directory.resolve("orders.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(OrderStageEvent.NAME))
+                .toList();
+    }
+}
@@ -0,0 +1,113 @@
+package com.adrian.challenge.services;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.models.SlowOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlowOrderLogTest {
+
+    private static final long WINDOW = TimeUnit.MINUTES.toNanos(1);
+
+    private OrderProperties properties;
+    private long now;
+
+    @BeforeEach
+    void setup() {
+        properties = new OrderProperties();
+        properties.getTracing().setSlowOrders(3);
+        properties.getTracing().setSlowOrdersWindow(Duration.ofNanos(WINDOW));
+        now = System.nanoTime();
+    }
+
+    @Test
+    void slowest_shouldKeepTheSlowestOrdersSlowestFirst() {
+        // Given
+        SlowOrderLog log = new SlowOrderLog(properties);
+
+        // When
+        for (long millis : new long[]{40, 10, 50, 30, 20}) {
+            record(log, millis, millis);
+        }
+
+        // Then
+        assertEquals(List.of(50L, 40L, 30L), log.slowest().stream().map(SlowOrder::getOrderId).toList());
+        assertEquals(50.0, log.slowest().get(0).getTotalMillis());
+    }
+
+    @Test
+    void slowest_shouldBreakEachOrderDownIntoTheStepsItFinished() {
+        // Given
+        SlowOrderLog log = new SlowOrderLog(properties);
+        OrderTrace trace = new OrderTrace("Customer A", now, 0);
+        trace.end(OrderTrace.Step.VALIDATION);
+        trace.end(OrderTrace.Step.ADMISSION);
+        trace.end(OrderTrace.Step.BUSINESS_QUEUE);
+
+        // When
+        log.record(trace, System.nanoTime(), 0, "timeout");
+
+        // Then
+        SlowOrder slowest = log.slowest().get(0);
+        assertNull(slowest.getOrderId());
+        assertEquals("Customer A", slowest.getCustomer());
+        assertEquals("timeout", slowest.getOutcome());
+        assertEquals(List.of("validation", "admission", "business_queue"), List.copyOf(slowest.getSteps().keySet()));
+        double steps = slowest.getSteps().values().stream().mapToDouble(Double::doubleValue).sum();
+        assertTrue(steps <= slowest.getTotalMillis(), "steps " + slowest.getSteps());
+    }
+
+    @Test
+    void slowest_shouldKeepThePreviousWindowAndForgetOlderOnes() {
+        // Given
+        SlowOrderLog log = new SlowOrderLog(properties);
+        record(log, 1, 500);
+
+        // When the next window only sees faster orders
+        now += WINDOW;
+        record(log, 2, 10);
+
+        // Then
+        assertEquals(List.of(1L, 2L), log.slowest().stream().map(SlowOrder::getOrderId).toList());
+
+        // When another window goes by
+        now += WINDOW;
+        record(log, 3, 20);
+
+        // Then
+        assertEquals(List.of(3L, 2L), log.slowest().stream().map(SlowOrder::getOrderId).toList());
+
+        // When a whole window goes by without orders
+        now += 3 * WINDOW;
+        record(log, 4, 10);
+
+        // Then
+        assertEquals(List.of(4L), log.slowest().stream().map(SlowOrder::getOrderId).toList());
+    }
+
+    @Test
+    void record_whenDisabled_shouldKeepNothing() {
+        // Given
+        properties.getTracing().setSlowOrders(0);
+        SlowOrderLog log = new SlowOrderLog(properties);
+
+        // When
+        record(log, 1, 100);
+
+        // Then
+        assertTrue(log.slowest().isEmpty());
+    }
+
+    private void record(SlowOrderLog log, long orderId, long millis) {
+        OrderTrace trace = new OrderTrace("Customer A", now, 0);
+        log.record(trace, now + TimeUnit.MILLISECONDS.toNanos(millis), orderId, "success");
+    }
+}
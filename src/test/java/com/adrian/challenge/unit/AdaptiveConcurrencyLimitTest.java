@@ -0,0 +1,165 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.services.AdaptiveConcurrencyLimit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long MIN_LATENCY = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_LATENCY = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void shouldGrowWhileLatencyStaysFlat() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new OrderProperties.AdaptiveLimit(), 800);
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(300), limit.getLimit());
+        }
+
+        // Then
+        assertEquals(800, limit.getLimit());
+    }
+
+    @Test
+    void shouldNotGrowWhileMostOfTheLimitIsUnused() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new OrderProperties.AdaptiveLimit(), 800);
+
+        // When
+        for (int i = 0; i < 5_000; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(300), 2);
+        }
+
+        // Then
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void shouldShrinkToTheMinimumWhileLatencyKeepsRising() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new OrderProperties.AdaptiveLimit(), 800);
+
+        // When
+        long latency = TimeUnit.MILLISECONDS.toNanos(100);
+        for (int i = 0; i < 5_000; i++) {
+            latency += TimeUnit.MILLISECONDS.toNanos(1);
+            limit.onSample(latency, limit.getLimit());
+        }
+
+        // Then
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void shouldConvergeToTheCapacityOfTheBusinessLogic() {
+        // Given 50 orders at a time fit in the business logic, each taking 100-500 ms, and more orders than that
+        Simulation simulation = new Simulation(50, 42);
+
+        // When
+        simulation.run(TimeUnit.MINUTES.toNanos(3));
+        Simulation.Limits limits = simulation.measure(TimeUnit.MINUTES.toNanos(2));
+
+        // Then the limit settles a little over the capacity, keeping the business logic busy
+        assertTrue(limits.average() >= 50 && limits.average() <= 100, "limits " + limits);
+        assertTrue(limits.max() <= 100, "limits " + limits);
+        assertTrue(limits.utilization() >= 0.9, "limits " + limits);
+    }
+
+    @Test
+    void shouldFollowTheCapacityWhenItChanges() {
+        // Given
+        Simulation simulation = new Simulation(200, 7);
+        simulation.run(TimeUnit.MINUTES.toNanos(3));
+        Simulation.Limits before = simulation.measure(TimeUnit.MINUTES.toNanos(2));
+
+        // When the business logic can take four times fewer orders at a time
+        simulation.capacity = 50;
+        simulation.run(TimeUnit.MINUTES.toNanos(3));
+        Simulation.Limits after = simulation.measure(TimeUnit.MINUTES.toNanos(2));
+
+        // Then
+        assertTrue(before.average() >= 200 && before.average() <= 400, "limits before " + before);
+        assertTrue(after.average() >= 50 && after.average() <= 100, "limits after " + after);
+    }
+
+    /**
+     * Discrete-event model of the business stage under more orders than it can take: every slot the limit allows
+     * is always in use, and the business logic runs {@code capacity} orders at a time for a uniformly random
+     * 100-500 ms each, like {@code OrderService.simulateBusinessLogic}. The rest wait in line, which is what
+     * raises the latency the limit sees.
+     */
+    private static class Simulation {
+        private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new OrderProperties.AdaptiveLimit(), 800);
+        private final Random random;
+        /** Completion time and admission time of each order being processed, first to complete first. */
+        private final PriorityQueue<long[]> running = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        /** Admission times of the orders waiting for the business logic. */
+        private final Deque<Long> waiting = new ArrayDeque<>();
+        private int capacity;
+        private int inFlight;
+        private long now;
+
+        Simulation(int capacity, long seed) {
+            this.capacity = capacity;
+            this.random = new Random(seed);
+        }
+
+        void run(long duration) {
+            measure(duration);
+        }
+
+        /**
+         * Runs for {@code duration} of simulated time and returns the limits seen after each completed order, and
+         * the orders completed against what the business logic could have completed at full capacity.
+         */
+        Limits measure(long duration) {
+            long until = now + duration;
+            long count = 0;
+            double sum = 0;
+            int min = Integer.MAX_VALUE;
+            int max = 0;
+            admit();
+            while (now < until) {
+                long[] completed = running.poll();
+                now = completed[0];
+                inFlight--;
+                limit.onSample(now - completed[1], inFlight + 1);
+                admit();
+
+                int current = limit.getLimit();
+                count++;
+                sum += current;
+                min = Math.min(min, current);
+                max = Math.max(max, current);
+            }
+            double fullCapacity = (double) capacity * duration / ((MIN_LATENCY + MAX_LATENCY) / 2);
+            return new Limits(sum / count, min, max, count / fullCapacity);
+        }
+
+        private void admit() {
+            while (inFlight < limit.getLimit()) {
+                inFlight++;
+                waiting.addLast(now);
+            }
+            while (running.size() < capacity && !waiting.isEmpty()) {
+                long latency = MIN_LATENCY + (long) (random.nextDouble() * (MAX_LATENCY - MIN_LATENCY));
+                running.add(new long[]{now + latency, waiting.pollFirst()});
+            }
+        }
+
+        record Limits(double average, int min, int max, double utilization) {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.configs.AsyncConfig;
+import com.adrian.challenge.configs.OrderProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncConfigTest {
+
+    private MeterRegistry meterRegistry;
+    private OrderProperties properties;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new OrderProperties();
+        properties.getExecutor().setCorePoolSize(1);
+        properties.getExecutor().setMaxPoolSize(1);
+        properties.getExecutor().setQueueCapacity(1);
+    }
+
+    @Test
+    void orderExecutor_shouldExposeExecutorMetrics() {
+        // When
+        new AsyncConfig().orderExecutor(properties, meterRegistry);
+
+        // Then
+        assertNotNull(meterRegistry.find("executor.queued").tag("name", AsyncConfig.ORDER_EXECUTOR).gauge());
+        assertNotNull(meterRegistry.find("executor.active").tag("name", AsyncConfig.ORDER_EXECUTOR).gauge());
+        assertNotNull(meterRegistry.find("executor.rejected").tag("name", AsyncConfig.ORDER_EXECUTOR).counter());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21) // older runtimes fall back to the platform pool
+    void orderExecutor_inVirtualMode_shouldNotExportRejections() {
+        // Given
+        properties.getExecutor().setMode(OrderProperties.ExecutionMode.VIRTUAL);
+
+        // When
+        new AsyncConfig().orderExecutor(properties, meterRegistry);
+
+        // Then
+        assertNotNull(meterRegistry.find("executor.active").tag("name", AsyncConfig.ORDER_EXECUTOR).gauge());
+        assertNull(meterRegistry.find("executor.rejected").counter());
+    }
+
+    @Test
+    void orderExecutor_whenSaturated_shouldCountRejections() throws Exception {
+        // Given
+        AsyncTaskExecutor executor = new AsyncConfig().orderExecutor(properties, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        executor.execute(() -> await(release));
+
+        // When & Then
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        assertEquals(1.0, meterRegistry.get("executor.rejected").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    void exportExecutor_shouldBeBoundedByExportProperties() {
+        // Given
+        properties.getExport().setWriterThreads(2);
+        properties.getExport().setQueueCapacity(10);
+
+        // When
+        ThreadPoolTaskExecutor executor = assertInstanceOf(ThreadPoolTaskExecutor.class,
+                new AsyncConfig().exportExecutor(properties));
+
+        // Then
+        assertEquals(2, executor.getMaxPoolSize());
+        assertEquals(10, executor.getQueueCapacity());
+        executor.shutdown();
+    }
+
+    @Test
+    void orderExecutor_onShutdown_shouldDrainInFlightOrders() throws Exception {
+        // Given
+        ThreadPoolTaskExecutor executor = assertInstanceOf(ThreadPoolTaskExecutor.class,
+                new AsyncConfig().orderExecutor(properties, meterRegistry));
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        executor.execute(() -> {
+            started.countDown();
+            sleep(200);
+            finished.set(true);
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        // When
+        executor.destroy();
+
+        // Then
+        assertTrue(finished.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
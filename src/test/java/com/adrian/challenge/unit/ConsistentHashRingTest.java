@@ -0,0 +1,109 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.cluster.ConsistentHashRing;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 20_000;
+    private static final List<String> NODES = List.of("http://localhost:8081", "http://localhost:8082",
+            "http://localhost:8083");
+
+    @Test
+    void ownerOf_shouldNotDependOnTheOrderOfTheNodes() {
+        // Given
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 256);
+        ConsistentHashRing reversed = new ConsistentHashRing(List.of(NODES.get(2), NODES.get(1), NODES.get(0)), 256);
+
+        // When / Then
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(ring.ownerOf(customer(i)), reversed.ownerOf(customer(i)));
+        }
+    }
+
+    @Test
+    void ownerOf_shouldShareTheKeysEvenlyBetweenTheNodes() {
+        // Given
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 256);
+
+        // When
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.ownerOf(customer(i)), 1, Integer::sum);
+        }
+
+        // Then
+        assertEquals(NODES.size(), counts.size());
+        int even = KEYS / NODES.size();
+        counts.values().forEach(count -> assertTrue(Math.abs(count - even) < even * 0.2,
+                "Unbalanced ring: " + counts));
+    }
+
+    @Test
+    void ownerOf_shouldOnlyMoveKeysToANodeThatJoins() {
+        // Given
+        ConsistentHashRing before = new ConsistentHashRing(NODES, 256);
+        String joining = "http://localhost:8084";
+        List<String> nodes = new ArrayList<>(NODES);
+        nodes.add(joining);
+        ConsistentHashRing after = new ConsistentHashRing(nodes, 256);
+
+        // When
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String owner = after.ownerOf(customer(i));
+            if (!owner.equals(before.ownerOf(customer(i)))) {
+                assertEquals(joining, owner);
+                moved++;
+            }
+        }
+
+        // Then about a quarter of the keys moved
+        assertTrue(Math.abs(moved - KEYS / 4) < KEYS / 4 * 0.2, "Moved " + moved + " of " + KEYS);
+    }
+
+    @Test
+    void ownerOf_shouldOnlyMoveTheKeysOfANodeThatLeaves() {
+        // Given
+        ConsistentHashRing before = new ConsistentHashRing(NODES, 256);
+        ConsistentHashRing after = new ConsistentHashRing(NODES.subList(0, 2), 256);
+
+        // When / Then
+        for (int i = 0; i < KEYS; i++) {
+            String owner = before.ownerOf(customer(i));
+            if (!owner.equals(NODES.get(2))) {
+                assertEquals(owner, after.ownerOf(customer(i)));
+            }
+        }
+    }
+
+    @Test
+    void ownerOf_shouldGiveEveryKeyToTheOnlyNode() {
+        // Given
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("local"), 1);
+
+        // When / Then
+        for (int i = 0; i < 100; i++) {
+            assertEquals("local", ring.ownerOf(customer(i)));
+        }
+    }
+
+    @Test
+    void constructor_shouldRejectAnEmptyRing() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 256));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(NODES, 0));
+    }
+
+    private static String customer(int i) {
+        return "Customer " + i;
+    }
+}
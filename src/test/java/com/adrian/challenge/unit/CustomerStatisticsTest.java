@@ -0,0 +1,112 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.models.CustomerStats;
+import com.adrian.challenge.repositories.CompactOrder;
+import com.adrian.challenge.services.CustomerStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerStatisticsTest {
+
+    private MeterRegistry meterRegistry;
+    private CustomerStatistics statistics;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        statistics = new CustomerStatistics(meterRegistry);
+    }
+
+    @Test
+    void find_forUnknownCustomer_shouldBeEmpty() {
+        assertTrue(statistics.find("Nobody").isEmpty());
+    }
+
+    @Test
+    void record_shouldAggregateOrdersOfEachCustomer() {
+        // Given
+        statistics.record(order(1, "Customer A", 10_050, 2, 1_000L));
+        statistics.record(order(2, "Customer A", 2_000, 1, 3_000L));
+        statistics.record(order(3, "Customer B", 500, 5, 2_000L));
+
+        // When
+        CustomerStats stats = statistics.find("Customer A").orElseThrow();
+
+        // Then
+        assertEquals(2, stats.getOrderCount());
+        assertEquals(new BigDecimal("120.50"), stats.getTotalAmount());
+        assertEquals(3, stats.getItemCount());
+        assertEquals(Instant.ofEpochMilli(3_000L), stats.getLastOrderAt());
+        assertEquals(2.0, meterRegistry.get("order.customers.tracked").gauge().value());
+    }
+
+    @Test
+    void record_withAmountsNotInCents_shouldAddThemExactly() {
+        // Given
+        statistics.record(order(1, "Customer A", 10_050, 1, 1_000L));
+        statistics.record(CompactOrder.builder(2, "Customer A", 0, 2_000L, 1)
+                .amount(new BigDecimal("0.005"))
+                .addItem(1, "Item 0", 1, new BigDecimal("0.005"))
+                .build());
+        statistics.record(CompactOrder.builder(3, "Customer A", 0, 3_000L, 1)
+                .amount(new BigDecimal("100000000000000000.00"))
+                .addItem(1, "Item 0", 1, new BigDecimal("100000000000000000.00"))
+                .build());
+
+        // When
+        CustomerStats stats = statistics.find("Customer A").orElseThrow();
+
+        // Then
+        assertEquals(new BigDecimal("100000000000000100.505"), stats.getTotalAmount());
+    }
+
+    @Test
+    void record_fromManyThreads_shouldCountEveryOrder() throws Exception {
+        // Given
+        int threads = 8;
+        int ordersPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            long thread = t;
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < ordersPerThread; i++) {
+                    statistics.record(order(thread * ordersPerThread + i, "Hot customer", 100, 1, thread * 1_000L + i));
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Then
+        CustomerStats stats = statistics.find("Hot customer").orElseThrow();
+        assertEquals(threads * ordersPerThread, stats.getOrderCount());
+        assertEquals(BigDecimal.valueOf(threads * ordersPerThread * 100L, 2), stats.getTotalAmount());
+        assertEquals(threads * ordersPerThread, stats.getItemCount());
+        assertEquals(Instant.ofEpochMilli((threads - 1) * 1_000L + ordersPerThread - 1), stats.getLastOrderAt());
+    }
+
+    private static CompactOrder order(long id, String customer, long amountCents, int items, long createdAtMillis) {
+        CompactOrder.Builder builder = CompactOrder.builder(id, customer, amountCents, createdAtMillis, items);
+        for (int i = 0; i < items; i++) {
+            builder.addItem(i + 1, "Item " + i, 1, amountCents / items);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,224 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.repositories.InMemoryOrderStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryOrderStoreTest {
+
+    private MeterRegistry meterRegistry;
+    private OrderProperties.Store config;
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        config = new OrderProperties.Store();
+        config.setMaxSize(3);
+        config.setTtl(Duration.ofMinutes(10));
+        clock = new MutableClock();
+    }
+
+    @Test
+    void findById_ShouldReturnEquivalentOrder() {
+        // Given
+        InMemoryOrderStore store = createStore();
+        Order order = createOrder(1L, "Customer A");
+
+        // When
+        store.save(order);
+
+        // Then
+        Optional<Order> found = store.findById(1L);
+        assertTrue(found.isPresent());
+        assertEquals("Customer A", found.get().getCustomer());
+        assertEquals(0, new BigDecimal("100.50").compareTo(found.get().getAmount()));
+        assertEquals(2, found.get().getItems().get(0).getQuantity());
+        assertEquals(0, new BigDecimal("50.25").compareTo(found.get().getItems().get(0).getUnitPrice()));
+        assertEquals(1.0, meterRegistry.get("order.store.lookups").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void findById_WithMoreThanTwoDecimals_ShouldReturnTheExactAmounts() {
+        // Given
+        InMemoryOrderStore store = createStore();
+        Order order = createOrder(1L, "Customer A");
+        order.setAmount(new BigDecimal("100.505"));
+        order.getItems().get(0).setUnitPrice(new BigDecimal("50.2525"));
+
+        // When
+        store.save(order);
+
+        // Then
+        Order found = store.findById(1L).orElseThrow();
+        assertEquals(new BigDecimal("100.505"), found.getAmount());
+        assertEquals(new BigDecimal("50.2525"), found.getItems().get(0).getUnitPrice());
+    }
+
+    @Test
+    void findById_WithAmountBeyondLongCents_ShouldReturnTheExactAmount() {
+        // Given
+        InMemoryOrderStore store = createStore();
+        Order order = createOrder(1L, "Customer A");
+        order.setAmount(new BigDecimal("184467440737095516.15"));
+        order.getItems().get(0).setUnitPrice(new BigDecimal("92233720368547758.08"));
+
+        // When
+        store.save(order);
+
+        // Then
+        Order found = store.findById(1L).orElseThrow();
+        assertEquals(new BigDecimal("184467440737095516.15"), found.getAmount());
+        assertEquals(new BigDecimal("92233720368547758.08"), found.getItems().get(0).getUnitPrice());
+    }
+
+    @Test
+    void findByCustomer_ShouldUseCustomerIndex() {
+        // Given
+        InMemoryOrderStore store = createStore();
+        store.save(createOrder(1L, "Customer A"));
+        store.save(createOrder(2L, "Customer B"));
+        store.save(createOrder(3L, "Customer A"));
+
+        // Then
+        assertEquals(2, store.findByCustomer("Customer A").size());
+        assertEquals(1, store.findByCustomer("Customer B").size());
+        assertEquals(List.of(), store.findByCustomer("Customer C"));
+    }
+
+    @Test
+    void save_OverMaxSize_ShouldEvictOldestOrder() {
+        // Given
+        InMemoryOrderStore store = createStore();
+        for (long id = 1; id <= 4; id++) {
+            store.save(createOrder(id, "Customer " + id));
+        }
+
+        // Then
+        assertEquals(3, store.size());
+        assertTrue(store.findById(1L).isEmpty());
+        assertEquals(List.of(), store.findByCustomer("Customer 1"));
+        assertTrue(store.findById(4L).isPresent());
+        assertEquals(1.0, meterRegistry.get("order.store.evictions").tag("cause", "size").counter().count());
+    }
+
+    @Test
+    void save_AfterTtl_ShouldEvictExpiredOrders() {
+        // Given
+        InMemoryOrderStore store = createStore();
+        store.save(createOrder(1L, "Customer A"));
+        clock.advance(Duration.ofMinutes(11));
+
+        // Then
+        assertTrue(store.findById(1L).isEmpty());
+
+        // When
+        store.save(createOrder(2L, "Customer A"));
+
+        // Then
+        assertEquals(1, store.size());
+        assertEquals(1, store.findByCustomer("Customer A").size());
+        assertEquals(1.0, meterRegistry.get("order.store.evictions").tag("cause", "ttl").counter().count());
+    }
+
+    @Test
+    void save_WithExistingId_ShouldReplaceOrderAndIndex() {
+        // Given
+        InMemoryOrderStore store = createStore();
+        store.save(createOrder(1L, "Customer A"));
+
+        // When
+        store.save(createOrder(1L, "Customer B"));
+
+        // Then
+        assertEquals(1, store.size());
+        assertEquals(List.of(), store.findByCustomer("Customer A"));
+        assertEquals(1, store.findByCustomer("Customer B").size());
+    }
+
+    @Test
+    void findAfter_ShouldReturnLaterOrdersInIdOrder() {
+        // Given
+        InMemoryOrderStore store = createStore();
+        store.save(createOrder(3L, "Customer C"));
+        store.save(createOrder(1L, "Customer A"));
+        store.save(createOrder(2L, "Customer B"));
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L), store.findAfter(0).map(Order::getId).toList());
+        assertEquals(List.of(3L), store.findAfter(2).map(Order::getId).toList());
+        assertEquals(List.of(), store.findAfter(3).map(Order::getId).toList());
+        assertEquals(3.0, meterRegistry.get("order.store.size").gauge().value());
+    }
+
+    @Test
+    void findAfter_ShouldSkipExpiredOrders() {
+        // Given
+        InMemoryOrderStore store = createStore();
+        store.save(createOrder(1L, "Customer A"));
+        clock.advance(Duration.ofMinutes(11));
+        store.save(createOrder(2L, "Customer B"));
+        store.save(createOrder(3L, "Customer C"));
+
+        // Then
+        assertEquals(List.of(2L, 3L), store.findAfter(0).map(Order::getId).toList());
+    }
+
+    private InMemoryOrderStore createStore() {
+        return new InMemoryOrderStore(config, meterRegistry, clock);
+    }
+
+    private Order createOrder(long id, String customer) {
+        return Order.builder()
+                .id(id)
+                .customer(customer)
+                .amount(new BigDecimal("100.50"))
+                .items(List.of(Item.builder()
+                        .productId(1L)
+                        .name("Test Item")
+                        .quantity(2)
+                        .unitPrice(new BigDecimal("50.25"))
+                        .build()))
+                .build();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.exceptions.PartialSaveException;
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.repositories.CompactOrder;
+import com.adrian.challenge.repositories.InMemoryOrderStore;
+import com.adrian.challenge.repositories.JournalOrderStore;
+import com.adrian.challenge.services.CustomerStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalOrderStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private MeterRegistry meterRegistry;
+    private OrderProperties.Store config;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        config = new OrderProperties.Store();
+        config.setPersistence(OrderProperties.Persistence.JOURNAL);
+        config.getJournal().setDirectory(directory.toString());
+        config.getJournal().setSegmentSize(DataSize.ofKilobytes(64));
+    }
+
+    @Test
+    void reopen_ShouldRecoverSavedOrders() {
+        // Given
+        try (JournalOrderStore store = openStore()) {
+            store.save(createOrder(1L, "Customer A"));
+            store.save(createOrder(2L, "Customer B"));
+        }
+
+        // When
+        try (JournalOrderStore store = openStore()) {
+            // Then
+            assertEquals(2, store.size());
+            Order recovered = store.findById(1L).orElseThrow();
+            assertEquals("Customer A", recovered.getCustomer());
+            assertEquals(0, new BigDecimal("150.50").compareTo(recovered.getAmount()));
+            assertEquals("Product 2", recovered.getItems().get(1).getName());
+            assertEquals(1, store.findByCustomer("Customer B").size());
+        }
+    }
+
+    @Test
+    void reopen_WithAmountsNotInCents_ShouldRecoverThemExactly() {
+        // Given
+        Order order = createOrder(1L, "Customer A");
+        order.setAmount(new BigDecimal("1E+20"));
+        order.setItems(List.of(
+                Item.builder().productId(1L).name("Product 1").quantity(3).unitPrice(new BigDecimal("0.333")).build(),
+                Item.builder().productId(2L).name("Product 2").quantity(1).unitPrice(new BigDecimal("50.50")).build()));
+        try (JournalOrderStore store = openStore()) {
+            store.save(order);
+        }
+
+        // When
+        try (JournalOrderStore store = openStore()) {
+            // Then
+            Order recovered = store.findById(1L).orElseThrow();
+            assertEquals(new BigDecimal("1E+20"), recovered.getAmount());
+            assertEquals(new BigDecimal("0.333"), recovered.getItems().get(0).getUnitPrice());
+            assertEquals(new BigDecimal("50.50"), recovered.getItems().get(1).getUnitPrice());
+            assertEquals("Product 2", recovered.getItems().get(1).getName());
+        }
+    }
+
+    @Test
+    void save_ShouldRollSegmentsAndRecoverAcrossThem() throws IOException {
+        // Given
+        config.getJournal().setSegmentSize(DataSize.ofBytes(512));
+        try (JournalOrderStore store = openStore()) {
+            for (long id = 1; id <= 20; id++) {
+                store.save(createOrder(id, "Customer " + id));
+            }
+        }
+
+        // When
+        try (JournalOrderStore store = openStore()) {
+            // Then
+            assertTrue(segments().size() > 1);
+            assertEquals(20, store.size());
+            assertTrue(store.findById(20L).isPresent());
+        }
+    }
+
+    @Test
+    void saveAll_ShouldMakeTheWholeBatchDurable() {
+        // Given
+        List<CompactOrder> batch = List.of(
+                CompactOrder.from(createOrder(1L, "Customer A"), Clock.systemUTC().millis()),
+                CompactOrder.from(createOrder(2L, "Customer B"), Clock.systemUTC().millis()),
+                CompactOrder.from(createOrder(3L, "Customer A"), Clock.systemUTC().millis()));
+        try (JournalOrderStore store = openStore()) {
+            store.saveAll(batch);
+            assertEquals(3, store.size());
+        }
+
+        // When
+        try (JournalOrderStore store = openStore()) {
+            // Then
+            assertEquals(3, store.size());
+            assertEquals(2, store.findByCustomer("Customer A").size());
+        }
+    }
+
+    @Test
+    void saveAll_WhenAnAppendFails_ShouldSaveTheRestAndReportOnlyTheFailedOrder() {
+        // Given
+        long now = Clock.systemUTC().millis();
+        // Larger than a 64 KB segment, so the journal refuses to append it
+        CompactOrder tooLarge = CompactOrder.from(createOrder(2L, "X".repeat(70_000)), now);
+        List<CompactOrder> batch = List.of(
+                CompactOrder.from(createOrder(1L, "Customer A"), now),
+                tooLarge,
+                CompactOrder.from(createOrder(3L, "Customer B"), now));
+        try (JournalOrderStore store = openStore()) {
+            // When
+            PartialSaveException failure = assertThrows(PartialSaveException.class, () -> store.saveAll(batch));
+
+            // Then
+            assertEquals(List.of(tooLarge), failure.getUnsaved());
+            assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+            assertEquals(2, store.size());
+            assertTrue(store.findById(2L).isEmpty());
+        }
+        try (JournalOrderStore store = openStore()) {
+            assertEquals(2, store.size());
+            assertTrue(store.findById(1L).isPresent());
+            assertTrue(store.findById(3L).isPresent());
+        }
+    }
+
+    @Test
+    void reopen_WithTornRecord_ShouldKeepOrdersBeforeItAndAcceptNewOnes() throws IOException {
+        // Given
+        try (JournalOrderStore store = openStore()) {
+            store.save(createOrder(1L, "Customer A"));
+            store.save(createOrder(2L, "Customer B"));
+        }
+        corruptLastRecord(segments().get(0));
+
+        // When
+        try (JournalOrderStore store = openStore()) {
+            store.save(createOrder(3L, "Customer C"));
+        }
+
+        // Then
+        try (JournalOrderStore store = openStore()) {
+            assertEquals(2, store.size());
+            assertTrue(store.findById(1L).isPresent());
+            assertTrue(store.findById(2L).isEmpty());
+            assertTrue(store.findById(3L).isPresent());
+        }
+    }
+
+    @Test
+    void reopen_ShouldPassRecoveredOrdersToListener() {
+        // Given
+        try (JournalOrderStore store = openStore()) {
+            store.save(createOrder(1L, "Customer A"));
+            store.save(createOrder(2L, "Customer A"));
+        }
+        CustomerStatistics statistics = new CustomerStatistics(meterRegistry);
+
+        // When
+        try (JournalOrderStore store = new JournalOrderStore(
+                new InMemoryOrderStore(config, meterRegistry, Clock.systemUTC()),
+                config, meterRegistry, Clock.systemUTC(), statistics::record)) {
+            // Then
+            assertEquals(2, statistics.find("Customer A").orElseThrow().getOrderCount());
+        }
+    }
+
+    private JournalOrderStore openStore() {
+        return new JournalOrderStore(new InMemoryOrderStore(config, meterRegistry, Clock.systemUTC()),
+                config, meterRegistry, Clock.systemUTC());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static void corruptLastRecord(Path segment) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            int offset = 0;
+            int lastPayload = -1;
+            while (true) {
+                file.seek(offset);
+                int length = file.readInt();
+                if (length == 0) {
+                    break;
+                }
+                lastPayload = offset + 8;
+                offset = lastPayload + length;
+            }
+            file.seek(lastPayload + 3);
+            file.writeByte(0x7f);
+        }
+    }
+
+    private static Order createOrder(long id, String customer) {
+        return Order.builder()
+                .id(id)
+                .customer(customer)
+                .amount(new BigDecimal("150.50"))
+                .items(List.of(
+                        Item.builder().productId(1L).name("Product 1").quantity(2).unitPrice(new BigDecimal("50.00")).build(),
+                        Item.builder().productId(2L).name("Product 2").quantity(1).unitPrice(new BigDecimal("50.50")).build()))
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.exceptions.OrderRejectedException;
+import com.adrian.challenge.services.OrderAdmissionControl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderAdmissionControlTest {
+
+    private MeterRegistry meterRegistry;
+    private OrderProperties properties;
+    private OrderAdmissionControl admissionControl;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new OrderProperties();
+        properties.getAdmission().setMaxInFlight(1);
+        properties.getAdmission().setMaxQueued(1);
+        properties.getAdmission().setQueueWaitTimeout(Duration.ofSeconds(5));
+        admissionControl = new OrderAdmissionControl(properties, meterRegistry);
+    }
+
+    @Test
+    void submit_whenBudgetIsFree_shouldRunTaskImmediately() throws Exception {
+        // When
+        CompletableFuture<String> result = admissionControl.submit(() -> CompletableFuture.completedFuture("done"));
+
+        // Then
+        assertEquals("done", result.get(1, TimeUnit.SECONDS));
+        assertEquals(0, admissionControl.getInFlight());
+        assertEquals(1.0, meterRegistry.get("order.admission.limit").gauge().value());
+        assertEquals(1.0, count("admitted"));
+    }
+
+    @Test
+    void submit_whenBudgetIsTaken_shouldQueueUntilSlotIsReleased() throws Exception {
+        // Given
+        CompletableFuture<String> first = new CompletableFuture<>();
+        admissionControl.submit(() -> first);
+
+        // When
+        CompletableFuture<String> second = admissionControl.submit(() -> CompletableFuture.completedFuture("second"));
+
+        // Then
+        assertFalse(second.isDone());
+        assertEquals(1, admissionControl.getWaiting());
+
+        first.complete("first");
+        assertEquals("second", second.get(1, TimeUnit.SECONDS));
+        assertEquals(1.0, count("queued"));
+        assertEquals(2.0, count("admitted"));
+    }
+
+    @Test
+    void submit_whenQueueIsFull_shouldShedWithRetryAfter() {
+        // Given
+        admissionControl.submit(CompletableFuture::new);
+        admissionControl.submit(CompletableFuture::new);
+
+        // When
+        CompletableFuture<Object> shed = admissionControl.submit(CompletableFuture::new);
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, shed::join);
+        OrderRejectedException rejected = assertInstanceOf(OrderRejectedException.class, exception.getCause());
+        assertEquals(properties.getAdmission().getRetryAfter(), rejected.getRetryAfter());
+        assertEquals(1.0, count("shed"));
+    }
+
+    @Test
+    void submit_whenQueueWaitTimesOut_shouldShed() {
+        // Given
+        properties.getAdmission().setQueueWaitTimeout(Duration.ofMillis(50));
+        admissionControl.submit(CompletableFuture::new);
+
+        // When
+        CompletableFuture<Object> queued = admissionControl.submit(CompletableFuture::new);
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, queued::join);
+        assertInstanceOf(OrderRejectedException.class, exception.getCause());
+        assertEquals(0, admissionControl.getWaiting());
+        assertEquals(1.0, count("shed"));
+    }
+
+    @Test
+    void submit_whenExecutorRejects_shouldReleaseSlotAndShed() {
+        // When
+        CompletableFuture<Object> rejected = admissionControl.submit(() -> {
+            throw new RejectedExecutionException("queue full");
+        });
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(OrderRejectedException.class, exception.getCause());
+        assertEquals(0, admissionControl.getInFlight());
+        assertTrue(admissionControl.submit(() -> CompletableFuture.completedFuture("ok")).isDone());
+    }
+
+    @Test
+    void submit_withAdaptiveLimit_shouldHoldSlotsOverALoweredLimit() throws Exception {
+        // Given
+        properties.getAdmission().setMaxInFlight(10);
+        properties.getAdmission().getAdaptive().setEnabled(true);
+        properties.getAdmission().getAdaptive().setInitialLimit(2);
+        properties.getAdmission().getAdaptive().setMinLimit(1);
+        properties.getAdmission().getAdaptive().setWindowSize(1);
+        properties.getAdmission().getAdaptive().setSmoothing(1.0);
+        OrderAdmissionControl adaptive = new OrderAdmissionControl(properties, new SimpleMeterRegistry());
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        adaptive.submit(() -> first);
+        adaptive.submit(() -> second);
+        CompletableFuture<String> third = adaptive.submit(() -> CompletableFuture.completedFuture("third"));
+        assertFalse(third.isDone());
+
+        // When the business stage gets ten times slower
+        adaptive.recordLatency(TimeUnit.MILLISECONDS.toNanos(100));
+        adaptive.recordLatency(TimeUnit.MILLISECONDS.toNanos(100));
+        for (int i = 0; i < 3; i++) {
+            adaptive.recordLatency(TimeUnit.SECONDS.toNanos(1));
+        }
+
+        // Then
+        assertEquals(1, adaptive.getLimit());
+        first.complete("first");
+        assertFalse(third.isDone());
+        assertEquals(1, adaptive.getInFlight());
+        second.complete("second");
+        assertEquals("third", third.get(1, TimeUnit.SECONDS));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("order.admission.requests").tag("result", result).counter().count();
+    }
+}
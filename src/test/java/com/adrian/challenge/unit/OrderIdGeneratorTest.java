@@ -0,0 +1,116 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.services.OrderIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderIdGeneratorTest {
+
+    @Test
+    void nextId_fromManyThreads_shouldBeUniqueAndIncreasingPerThread() throws Exception {
+        // Given
+        OrderIdGenerator generator = new OrderIdGenerator(7, System::currentTimeMillis);
+        int threads = 8;
+        int idsPerThread = 200_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        // When
+        List<Future<Boolean>> increasing = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            increasing.add(pool.submit(() -> {
+                start.await();
+                long previous = Long.MIN_VALUE;
+                boolean monotonic = true;
+                for (int i = 0; i < idsPerThread; i++) {
+                    long id = generator.nextId();
+                    monotonic &= id > previous;
+                    previous = id;
+                    ids.add(id);
+                }
+                return monotonic;
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(threads * idsPerThread, ids.size());
+        for (Future<Boolean> result : increasing) {
+            assertTrue(result.get());
+        }
+        assertTrue(ids.stream().allMatch(id -> OrderIdGenerator.nodeIdOf(id) == 7));
+    }
+
+    @Test
+    void nextId_whenClockStepsBack_shouldKeepIncreasing() {
+        // Given
+        AtomicLong clock = new AtomicLong(OrderIdGenerator.EPOCH_MILLIS + 10_000);
+        OrderIdGenerator generator = new OrderIdGenerator(1, clock::get);
+        long first = generator.nextId();
+
+        // When
+        clock.addAndGet(-5_000);
+        long second = generator.nextId();
+
+        // Then
+        assertTrue(second > first);
+        assertEquals(OrderIdGenerator.EPOCH_MILLIS + 10_000, OrderIdGenerator.timestampOf(second));
+    }
+
+    @Test
+    void nextId_whenSequenceIsExhausted_shouldBorrowNextMillisecond() {
+        // Given
+        OrderIdGenerator generator = new OrderIdGenerator(1, () -> OrderIdGenerator.EPOCH_MILLIS + 10_000);
+
+        // When
+        long previous = generator.nextId();
+        for (int i = 0; i < 5_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+
+        // Then
+        assertEquals(OrderIdGenerator.EPOCH_MILLIS + 10_001, OrderIdGenerator.timestampOf(previous));
+    }
+
+    @Test
+    void nextId_onDifferentNodes_shouldNotCollide() {
+        // Given
+        OrderIdGenerator node1 = new OrderIdGenerator(1, () -> OrderIdGenerator.EPOCH_MILLIS + 10_000);
+        OrderIdGenerator node2 = new OrderIdGenerator(2, () -> OrderIdGenerator.EPOCH_MILLIS + 10_000);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            ids.add(node1.nextId());
+            ids.add(node2.nextId());
+        }
+
+        // Then
+        assertEquals(2_000, ids.size());
+    }
+
+    @Test
+    void constructor_withOutOfRangeNodeId_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderIdGenerator(OrderIdGenerator.MAX_NODE_ID + 1, System::currentTimeMillis));
+        assertThrows(IllegalArgumentException.class, () -> new OrderIdGenerator(-1, System::currentTimeMillis));
+    }
+}
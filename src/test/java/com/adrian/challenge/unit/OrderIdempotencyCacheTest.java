@@ -0,0 +1,191 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.exceptions.CustomBadRequestException;
+import com.adrian.challenge.exceptions.IdempotencyKeyConflictException;
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.models.ProcessedOrder;
+import com.adrian.challenge.services.OrderIdempotencyCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderIdempotencyCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private OrderProperties.Idempotency config;
+    private Clock clock;
+    private OrderIdempotencyCache cache;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        config = new OrderProperties.Idempotency();
+        config.setMaxSize(2);
+        config.setTtl(Duration.ofMinutes(10));
+        clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(0L);
+        cache = new OrderIdempotencyCache(config, meterRegistry, clock);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void process_whenKeyIsRetried_shouldReplayResultWithoutProcessingAgain() {
+        // Given
+        Order order = createOrder("Customer A");
+        ProcessedOrder first = cache.process("key-1", order, () -> run(1)).join();
+
+        // When
+        ProcessedOrder retry = cache.process("key-1", createOrder("Customer A"), () -> run(2)).join();
+
+        // Then
+        assertEquals(first, retry);
+        assertEquals(1, executions.get());
+        assertEquals(1.0, count("miss"));
+        assertEquals(1.0, count("hit"));
+    }
+
+    @Test
+    void process_whenKeyIsInFlight_shouldCoalesceOnRunningOrder() {
+        // Given
+        CompletableFuture<ProcessedOrder> running = new CompletableFuture<>();
+        CompletableFuture<ProcessedOrder> first = cache.process("key-1", createOrder("Customer A"), () -> running);
+
+        // When
+        CompletableFuture<ProcessedOrder> duplicate = cache.process("key-1", createOrder("Customer A"), () -> run(99));
+        running.complete(ProcessedOrder.of(1));
+
+        // Then
+        assertEquals(1, first.join().getId());
+        assertEquals(1, duplicate.join().getId());
+        assertEquals(0, executions.get());
+        assertEquals(1.0, count("coalesced"));
+    }
+
+    @Test
+    void process_whenFirstAttemptFails_shouldRunRetry() {
+        // Given
+        CompletableFuture<ProcessedOrder> failed = cache.process("key-1", createOrder("Customer A"),
+                () -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+        assertThrows(CompletionException.class, failed::join);
+
+        // When
+        ProcessedOrder retry = cache.process("key-1", createOrder("Customer A"), () -> run(2)).join();
+
+        // Then
+        assertEquals(2, retry.getId());
+        assertEquals(2.0, count("miss"));
+    }
+
+    @Test
+    void process_whenKeyIsReusedForDifferentOrder_shouldThrowConflict() {
+        // Given
+        cache.process("key-1", createOrder("Customer A"), () -> run(1)).join();
+
+        // Then
+        assertThrows(IdempotencyKeyConflictException.class,
+                () -> cache.process("key-1", createOrder("Customer B"), () -> run(99)));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void process_whenRetryWritesAmountsWithAnotherScale_shouldReplayResult() {
+        // Given
+        cache.process("key-1", createOrder("Customer A"), () -> run(1)).join();
+        Order retry = createOrder("Customer A", new BigDecimal("100.0"), new BigDecimal("50"));
+
+        // When
+        ProcessedOrder result = cache.process("key-1", retry, () -> run(2)).join();
+
+        // Then
+        assertEquals(1, result.getId());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void process_whenKeyIsReusedForOrderWithOtherAmount_shouldThrowConflict() {
+        // Given
+        cache.process("key-1", createOrder("Customer A"), () -> run(1)).join();
+        Order other = createOrder("Customer A", new BigDecimal("100.001"), new BigDecimal("50.00"));
+
+        // Then
+        assertThrows(IdempotencyKeyConflictException.class, () -> cache.process("key-1", other, () -> run(99)));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void process_whenKeyHasExpired_shouldProcessAgain() {
+        // Given
+        cache.process("key-1", createOrder("Customer A"), () -> run(1)).join();
+        when(clock.millis()).thenReturn(Duration.ofMinutes(11).toMillis());
+
+        // When
+        ProcessedOrder retry = cache.process("key-1", createOrder("Customer A"), () -> run(2)).join();
+
+        // Then
+        assertEquals(2, retry.getId());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void process_whenOverCapacity_shouldEvictOldestKey() {
+        // Given
+        for (int i = 1; i <= 3; i++) {
+            int id = i;
+            cache.process("key-" + i, createOrder("Customer A"), () -> run(id)).join();
+        }
+
+        // When
+        cache.process("key-1", createOrder("Customer A"), () -> run(4)).join();
+
+        // Then
+        assertEquals(4, executions.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void process_withOversizedKey_shouldThrowBadRequest() {
+        // Then
+        assertThrows(CustomBadRequestException.class,
+                () -> cache.process("k".repeat(256), createOrder("Customer A"), () -> run(99)));
+        assertFalse(executions.get() > 0);
+    }
+
+    private CompletableFuture<ProcessedOrder> run(long id) {
+        executions.incrementAndGet();
+        return CompletableFuture.completedFuture(ProcessedOrder.of(id));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("order.idempotency.requests").tag("result", result).counter().count();
+    }
+
+    private static Order createOrder(String customer) {
+        return createOrder(customer, new BigDecimal("100.00"), new BigDecimal("50.00"));
+    }
+
+    private static Order createOrder(String customer, BigDecimal amount, BigDecimal unitPrice) {
+        return Order.builder()
+                .customer(customer)
+                .amount(amount)
+                .items(List.of(Item.builder().productId(1L).name("Product 1").quantity(2).unitPrice(unitPrice).build()))
+                .build();
+    }
+}
@@ -1,9 +1,23 @@
 package com.adrian.challenge.unit;
 
+import com.adrian.challenge.configs.AsyncConfig;
+import com.adrian.challenge.configs.OrderProperties;
 import com.adrian.challenge.exceptions.InvalidOrderAmountException;
+import com.adrian.challenge.exceptions.OrderRejectedException;
+import com.adrian.challenge.exceptions.OrderTimeoutException;
+import com.adrian.challenge.exceptions.PartialSaveException;
 import com.adrian.challenge.models.Item;
 import com.adrian.challenge.models.Order;
+import com.adrian.challenge.models.ProcessedOrder;
+import com.adrian.challenge.repositories.CompactOrder;
+import com.adrian.challenge.repositories.InMemoryOrderStore;
+import com.adrian.challenge.repositories.OrderStore;
+import com.adrian.challenge.services.CustomerStatistics;
+import com.adrian.challenge.services.OrderAdmissionControl;
+import com.adrian.challenge.services.OrderIdGenerator;
+import com.adrian.challenge.services.OrderMetrics;
 import com.adrian.challenge.services.OrderService;
+import com.adrian.challenge.services.SlowOrderLog;
 import com.adrian.challenge.validators.OrderValidator;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
@@ -12,22 +26,37 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -43,9 +72,11 @@ public class OrderServiceTest {
     @Mock
     private OrderValidator validator;
 
-    @InjectMocks
     private OrderService service;
 
+    /** Services and executors created by a test, closed after it in reverse order. */
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
     private Order testOrder;
     private List<Item> testItems;
 
@@ -68,7 +99,35 @@ public class OrderServiceTest {
 
         meterRegistry = new SimpleMeterRegistry();
 
-        service = new OrderService(meterRegistry, validator);
+        service = createService(new OrderProperties());
+    }
+
+    private OrderService createService(OrderProperties properties) {
+        return createService(properties, new InMemoryOrderStore(properties.getStore(), meterRegistry, Clock.systemUTC()));
+    }
+
+    private OrderService createService(OrderProperties properties, OrderStore store) {
+        // Orders a test leaves blocked must not hold up its teardown for long
+        properties.getExecutor().setShutdownTimeout(Duration.ofSeconds(1));
+        AsyncTaskExecutor executor = new AsyncConfig().orderExecutor(properties, meterRegistry);
+        closeables.add(executor instanceof AutoCloseable closeable ? closeable : ((DisposableBean) executor)::destroy);
+        return createService(properties, store, executor);
+    }
+
+    private OrderService createService(OrderProperties properties, OrderStore store, AsyncTaskExecutor executor) {
+        OrderService created = new OrderService(new OrderMetrics(meterRegistry), validator, executor,
+                new OrderAdmissionControl(properties, meterRegistry),
+                store, new OrderIdGenerator(properties), new CustomerStatistics(meterRegistry),
+                new SlowOrderLog(properties), properties, meterRegistry);
+        closeables.add(created);
+        return created;
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (int i = closeables.size() - 1; i >= 0; i--) {
+            closeables.get(i).close();
+        }
     }
 
     @Test
@@ -77,11 +136,12 @@ public class OrderServiceTest {
         doNothing().when(validator).validate(any(Order.class));
 
         // When
-        CompletableFuture<String> future = service.processOrder(testOrder);
+        CompletableFuture<ProcessedOrder> future = service.processOrder(testOrder);
 
         // Then
-        String result = future.get(1, TimeUnit.SECONDS);
-        assertTrue(result.contains("processed successfully"));
+        ProcessedOrder result = future.get(1, TimeUnit.SECONDS);
+        assertTrue(result.getMessage().contains("processed successfully"));
+        assertEquals(testOrder.getId(), result.getId());
         verify(validator).validate(testOrder);
     }
 
@@ -100,6 +160,22 @@ public class OrderServiceTest {
         verify(validator).validate(testOrder);
     }
 
+    @Test
+    void processOrder_whenOrderIsInvalid_shouldFailBeforeEnteringThePipeline() {
+        // Given
+        doThrow(new InvalidOrderAmountException("Invalid order amount"))
+                .when(validator).validate(any(Order.class));
+
+        // When
+        CompletableFuture<ProcessedOrder> future = service.processOrder(testOrder);
+
+        // Then
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(0L, meterRegistry.get("order.pipeline.batch.size").tag("stage", "business").summary().count());
+        assertEquals(1.0, meterRegistry.get("order.processed").tag("result", "validation_failure").counter().count());
+        assertEquals(0, service.getProcessedOrders().size());
+    }
+
     @Test
     void processOrder_whenProcessingFails_shouldReturnErrorResponse() {
         // Given
@@ -107,7 +183,7 @@ public class OrderServiceTest {
                 .when(validator).validate(any(Order.class));
 
         // When
-        CompletableFuture<String> future = service.processOrder(testOrder);
+        CompletableFuture<ProcessedOrder> future = service.processOrder(testOrder);
 
         // Then
         CompletionException exception = assertThrows(CompletionException.class, future::join);
@@ -121,7 +197,7 @@ public class OrderServiceTest {
         int numberOfRequests = 5;
         doNothing().when(validator).validate(any(Order.class));
         // Create a list of futures
-        List<CompletableFuture<String>> futures = new ArrayList<>();
+        List<CompletableFuture<ProcessedOrder>> futures = new ArrayList<>();
 
         // When
         for (int i = 0; i < numberOfRequests; i++) {
@@ -139,4 +215,404 @@ public class OrderServiceTest {
         // Then
         verify(validator, times(numberOfRequests)).validate(any(Order.class));
     }
+
+    @Test
+    void processOrder_underLoad_shouldGrowTheExecutorToItsMaxPoolSize() {
+        // Given
+        meterRegistry = new SimpleMeterRegistry(); // the meters of the default service are registered first
+        OrderProperties properties = new OrderProperties();
+        properties.getExecutor().setCorePoolSize(2);
+        properties.getExecutor().setMaxPoolSize(6);
+        properties.getProcessing().setMinLatency(Duration.ofMillis(500));
+        properties.getProcessing().setMaxLatency(Duration.ofMillis(500));
+        OrderService loadedService = createService(properties);
+        doNothing().when(validator).validate(any(Order.class));
+
+        // When
+        IntStream.range(0, 20).forEach(i -> loadedService.processOrder(testOrder));
+
+        // Then
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> assertEquals(6.0, meterRegistry.get("executor.pool.size")
+                .tag("name", AsyncConfig.ORDER_EXECUTOR).gauge().value()));
+        assertEquals(6.0, meterRegistry.get("order.pipeline.workers.max").tag("stage", "business").gauge().value());
+    }
+
+    @Test
+    void businessStage_onAConcurrencyLimitedExecutor_shouldTakeItsLimit() {
+        // Given
+        meterRegistry = new SimpleMeterRegistry(); // the meters of the default service are registered first
+        OrderProperties properties = new OrderProperties();
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("LimitedOrderThread-");
+        executor.setConcurrencyLimit(7);
+        closeables.add(executor);
+
+        // When
+        createService(properties, new InMemoryOrderStore(properties.getStore(), meterRegistry, Clock.systemUTC()),
+                executor);
+
+        // Then
+        assertEquals(7.0, meterRegistry.get("order.pipeline.workers.max").tag("stage", "business").gauge().value());
+    }
+
+    @Test
+    void processOrder_inVirtualMode_shouldReturnSuccessMessage() throws Exception {
+        // Given
+        OrderProperties properties = new OrderProperties();
+        properties.getExecutor().setMode(OrderProperties.ExecutionMode.VIRTUAL);
+        properties.getExecutor().setVirtualConcurrencyLimit(2);
+        OrderService virtualService = createService(properties);
+        doNothing().when(validator).validate(any(Order.class));
+
+        // When
+        CompletableFuture<ProcessedOrder> future = virtualService.processOrder(testOrder);
+
+        // Then
+        ProcessedOrder result = future.get(1, TimeUnit.SECONDS);
+        assertTrue(result.getMessage().contains("processed successfully"));
+    }
+
+    @Test
+    void processOrder_shouldRecordOutcomeWithoutPerOrderMeters() throws Exception {
+        // Given
+        doNothing().when(validator).validate(any(Order.class));
+
+        // When
+        service.processOrder(testOrder).get(1, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(1.0, meterRegistry.get("order.processed").tag("result", "success").counter().count());
+        assertEquals(1L, meterRegistry.get("order.stage.duration")
+                .tags("stage", "business", "outcome", "success").timer().count());
+        assertTrue(meterRegistry.getMeters().stream().noneMatch(meter -> meter.getId().getTag("orderId") != null));
+    }
+
+    @Test
+    void metrics_shouldOnlyRegisterStageTimersForErrorsTheStageCanEndWith() {
+        // Then
+        assertEquals(3, meterRegistry.find("order.stage.duration").tag("stage", "validation").timers().size());
+        assertEquals(3, meterRegistry.find("order.stage.duration").tag("stage", "business").timers().size());
+        assertEquals(2, meterRegistry.find("order.stage.duration").tag("stage", "storage").timers().size());
+        assertTrue(meterRegistry.find("order.stage.duration").tags("stage", "validation", "error", "timeout").timers().isEmpty());
+    }
+
+    @Test
+    void processOrder_shouldKeepMeterCountConstantUnderLoad() throws Exception {
+        // Given
+        doNothing().when(validator).validate(any(Order.class));
+        service.processOrder(testOrder).get(1, TimeUnit.SECONDS);
+        int metersBefore = meterRegistry.getMeters().size();
+
+        // When
+        List<CompletableFuture<ProcessedOrder>> futures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            futures.add(service.processOrder(Order.builder()
+                    .customer("Customer " + i)
+                    .items(testItems)
+                    .amount(new BigDecimal("100.00"))
+                    .build()));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(metersBefore, meterRegistry.getMeters().size());
+        assertEquals(301.0, meterRegistry.get("order.processed").tag("result", "success").counter().count());
+        assertEquals(301, service.getProcessedOrders().size()); // every order got its own ID
+    }
+
+    @Test
+    void processOrder_shouldStoreProcessedOrder() throws Exception {
+        // Given
+        doNothing().when(validator).validate(any(Order.class));
+
+        // When
+        service.processOrder(testOrder).get(1, TimeUnit.SECONDS);
+
+        // Then
+        List<Order> processed = service.getProcessedOrders();
+        assertEquals(1, processed.size());
+        assertEquals(testOrder.getId(), processed.get(0).getId());
+        assertEquals(0, new BigDecimal("100.00").compareTo(processed.get(0).getAmount()));
+    }
+
+    @Test
+    void processOrder_shouldStoreOrdersQueuedDuringAWriteInOneBatch() throws Exception {
+        // Given
+        OrderProperties properties = new OrderProperties();
+        properties.getProcessing().setMinLatency(Duration.ZERO);
+        properties.getProcessing().setMaxLatency(Duration.ZERO);
+        CountDownLatch firstWrite = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        OrderStore store = new InMemoryOrderStore(properties.getStore(), meterRegistry, Clock.systemUTC()) {
+            @Override
+            public void saveAll(List<CompactOrder> orders) {
+                batchSizes.add(orders.size());
+                firstWrite.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.saveAll(orders);
+            }
+        };
+        OrderService batchingService = createService(properties, store);
+        doNothing().when(validator).validate(any(Order.class));
+
+        // When
+        List<CompletableFuture<ProcessedOrder>> futures = new ArrayList<>();
+        futures.add(batchingService.processOrder(testOrder));
+        assertTrue(firstWrite.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            futures.add(batchingService.processOrder(Order.builder()
+                    .customer("Customer " + i)
+                    .items(testItems)
+                    .amount(new BigDecimal("100.00"))
+                    .build()));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("order.pipeline.queue.depth").tag("stage", "storage").gauge().value() < 10
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(List.of(1, 10), batchSizes);
+        assertEquals(11, store.size());
+    }
+
+    @Test
+    void processOrder_whenStoreSavesPartOfABatch_shouldFailOnlyTheUnsavedOrders() throws Exception {
+        // Given
+        meterRegistry = new SimpleMeterRegistry(); // the stage gauges of the default service are registered already
+        OrderProperties properties = new OrderProperties();
+        properties.getProcessing().setMinLatency(Duration.ZERO);
+        properties.getProcessing().setMaxLatency(Duration.ZERO);
+        CountDownLatch firstWrite = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OrderStore store = new InMemoryOrderStore(properties.getStore(), meterRegistry, Clock.systemUTC()) {
+            @Override
+            public void saveAll(List<CompactOrder> orders) {
+                firstWrite.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                List<CompactOrder> unsaved = orders.stream()
+                        .filter(order -> order.getCustomer().equals("Unsaved")).toList();
+                super.saveAll(orders.stream().filter(order -> !unsaved.contains(order)).toList());
+                if (!unsaved.isEmpty()) {
+                    throw new PartialSaveException(unsaved, new IllegalStateException("Journal is full"));
+                }
+            }
+        };
+        OrderService partialService = createService(properties, store);
+        doNothing().when(validator).validate(any(Order.class));
+        CompletableFuture<ProcessedOrder> first = partialService.processOrder(testOrder);
+        assertTrue(firstWrite.await(1, TimeUnit.SECONDS));
+
+        // When
+        CompletableFuture<ProcessedOrder> unsaved = partialService.processOrder(Order.builder()
+                .customer("Unsaved")
+                .items(testItems)
+                .amount(new BigDecimal("100.00"))
+                .build());
+        CompletableFuture<ProcessedOrder> saved = partialService.processOrder(Order.builder()
+                .customer("Saved")
+                .items(testItems)
+                .amount(new BigDecimal("100.00"))
+                .build());
+        await().atMost(2, TimeUnit.SECONDS).until(() ->
+                meterRegistry.get("order.pipeline.queue.depth").tag("stage", "storage").gauge().value() == 2);
+        release.countDown();
+
+        // Then
+        assertNotNull(first.get(1, TimeUnit.SECONDS).getId());
+        assertNotNull(saved.get(1, TimeUnit.SECONDS).getId());
+        CompletionException failure = assertThrows(CompletionException.class, unsaved::join);
+        assertInstanceOf(PartialSaveException.class, failure.getCause());
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void processOrder_whenBusinessStageIsFull_shouldShedOrder() throws Exception {
+        // Given
+        meterRegistry = new SimpleMeterRegistry(); // the stage gauges of the default service are registered already
+        OrderProperties properties = new OrderProperties();
+        properties.getProcessing().setMinLatency(Duration.ofMillis(300));
+        properties.getProcessing().setMaxLatency(Duration.ofMillis(300));
+        properties.getPipeline().setBusiness(new OrderProperties.Stage(1, 1, 1));
+        OrderService smallService = createService(properties);
+        doNothing().when(validator).validate(any(Order.class));
+
+        // When
+        CompletableFuture<ProcessedOrder> first = smallService.processOrder(testOrder);
+        await().atMost(2, TimeUnit.SECONDS).until(() -> businessWorkers() == 1);
+        List<CompletableFuture<ProcessedOrder>> queued = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            queued.add(smallService.processOrder(Order.builder()
+                    .customer("Queued " + i).items(testItems).amount(new BigDecimal("100.00")).build()));
+        }
+        CompletableFuture<ProcessedOrder> shed = smallService.processOrder(Order.builder()
+                .customer("Shed").items(testItems).amount(new BigDecimal("100.00")).build());
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, shed::join);
+        assertTrue(exception.getCause() instanceof OrderRejectedException);
+        assertTrue(first.get(2, TimeUnit.SECONDS).getMessage().contains("processed successfully"));
+        for (CompletableFuture<ProcessedOrder> future : queued) {
+            assertTrue(future.get(2, TimeUnit.SECONDS).getMessage().contains("processed successfully"));
+        }
+    }
+
+    @Test
+    void processOrder_shouldPublishQueueDepthAndWorkersPerStage() throws Exception {
+        // Given
+        doNothing().when(validator).validate(any(Order.class));
+
+        // When
+        service.processOrder(testOrder).get(1, TimeUnit.SECONDS);
+
+        // Then
+        for (String stage : List.of("business", "storage")) {
+            assertEquals(0.0, meterRegistry.get("order.pipeline.queue.depth").tag("stage", stage).gauge().value());
+            assertNotNull(meterRegistry.get("order.pipeline.workers.active").tag("stage", stage).gauge());
+            assertEquals(1L, meterRegistry.get("order.pipeline.batch.size").tag("stage", stage).summary().count());
+        }
+        assertEquals(300.0, meterRegistry.get("order.pipeline.workers.max").tag("stage", "business").gauge().value());
+    }
+
+    @Test
+    void processOrder_pastItsDeadline_shouldFailAndInterruptTheBusinessLogic() {
+        // Given
+        meterRegistry = new SimpleMeterRegistry(); // the stage gauges of the default service are registered already
+        OrderProperties properties = new OrderProperties();
+        properties.getProcessing().setMinLatency(Duration.ofSeconds(10));
+        properties.getProcessing().setMaxLatency(Duration.ofSeconds(10));
+        OrderService slowService = createService(properties);
+        doNothing().when(validator).validate(any(Order.class));
+
+        // When
+        CompletableFuture<ProcessedOrder> future = slowService.processOrder(testOrder, Duration.ofMillis(100));
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, future::join);
+        assertTrue(exception.getCause() instanceof OrderTimeoutException);
+        await().atMost(2, TimeUnit.SECONDS).until(() -> businessWorkers() == 0);
+        assertEquals(1.0, meterRegistry.get("order.interrupted").counter().count());
+        assertEquals(1.0, meterRegistry.get("order.processed").tag("result", "timeout").counter().count());
+        assertEquals(0, slowService.getProcessedOrders().size());
+    }
+
+    @Test
+    void processOrder_whenCancelled_shouldInterruptTheBusinessLogic() {
+        // Given
+        meterRegistry = new SimpleMeterRegistry(); // the stage gauges of the default service are registered already
+        OrderProperties properties = new OrderProperties();
+        properties.getProcessing().setMinLatency(Duration.ofSeconds(10));
+        properties.getProcessing().setMaxLatency(Duration.ofSeconds(10));
+        OrderService slowService = createService(properties);
+        doNothing().when(validator).validate(any(Order.class));
+        CompletableFuture<ProcessedOrder> future = slowService.processOrder(testOrder);
+        await().atMost(2, TimeUnit.SECONDS).until(() -> businessWorkers() == 1);
+
+        // When
+        future.cancel(true);
+
+        // Then
+        await().atMost(2, TimeUnit.SECONDS).until(() -> businessWorkers() == 0);
+        assertEquals(1.0, meterRegistry.get("order.interrupted").counter().count());
+        assertEquals(1.0, meterRegistry.get("order.processed").tag("result", "cancelled").counter().count());
+        assertEquals(0, slowService.getProcessedOrders().size());
+    }
+
+    @Test
+    void processOrder_pastItsDeadlineWhileQueued_shouldBeDroppedBeforeItStarts() throws Exception {
+        // Given
+        meterRegistry = new SimpleMeterRegistry(); // the stage gauges of the default service are registered already
+        OrderProperties properties = new OrderProperties();
+        properties.getProcessing().setMinLatency(Duration.ofMillis(300));
+        properties.getProcessing().setMaxLatency(Duration.ofMillis(300));
+        properties.getPipeline().setBusiness(new OrderProperties.Stage(1, 16, 1));
+        OrderService singleWorkerService = createService(properties);
+        doNothing().when(validator).validate(any(Order.class));
+        CompletableFuture<ProcessedOrder> first = singleWorkerService.processOrder(testOrder);
+        await().atMost(2, TimeUnit.SECONDS).until(() -> businessWorkers() == 1);
+
+        // When
+        CompletableFuture<ProcessedOrder> expired = singleWorkerService.processOrder(Order.builder()
+                .customer("Expired").items(testItems).amount(new BigDecimal("100.00")).build(), Duration.ofMillis(50));
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, expired::join);
+        assertTrue(exception.getCause() instanceof OrderTimeoutException);
+        assertTrue(first.get(2, TimeUnit.SECONDS).getMessage().contains("processed successfully"));
+        await().atMost(2, TimeUnit.SECONDS)
+                .until(() -> meterRegistry.get("order.abandoned").tag("stage", "business").counter().count() == 1.0);
+        assertEquals(0.0, meterRegistry.get("order.interrupted").counter().count());
+        assertEquals(1, singleWorkerService.getProcessedOrders().size());
+    }
+
+    private double businessWorkers() {
+        return meterRegistry.get("order.pipeline.workers.active").tag("stage", "business").gauge().value();
+    }
+
+    @Test
+    void processOrder_withCustomerLanes_shouldCompleteOrdersOfACustomerInArrivalOrder() throws Exception {
+        // Given
+        OrderProperties properties = new OrderProperties();
+        properties.getProcessing().setMinLatency(Duration.ZERO);
+        properties.getProcessing().setMaxLatency(Duration.ofMillis(2));
+        properties.getAdmission().setMaxInFlight(10_000);
+        properties.getPipeline().getLanes().setEnabled(true);
+        properties.getPipeline().getLanes().setCount(4);
+        OrderService lanedService = createService(properties);
+        doNothing().when(validator).validate(any(Order.class));
+        int clients = 4;
+        int customersPerClient = 4;
+        int ordersPerCustomer = 50;
+        Map<String, List<Integer>> completions = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new CopyOnWriteArrayList<>();
+
+        // When
+        ExecutorService callers = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            callers.execute(() -> {
+                // Each client sends the orders of its own customers, interleaved
+                for (int sequence = 0; sequence < ordersPerCustomer; sequence++) {
+                    for (int k = 0; k < customersPerClient; k++) {
+                        String customer = "Customer " + client + "-" + k;
+                        int arrival = sequence;
+                        futures.add(lanedService.processOrder(Order.builder()
+                                        .customer(customer)
+                                        .items(testItems)
+                                        .amount(new BigDecimal("100.00"))
+                                        .build())
+                                .thenAccept(result -> completions
+                                        .computeIfAbsent(customer, key -> new CopyOnWriteArrayList<>())
+                                        .add(arrival)));
+                    }
+                }
+            });
+        }
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals(clients * customersPerClient, completions.size());
+        for (Map.Entry<String, List<Integer>> customer : completions.entrySet()) {
+            assertEquals(IntStream.range(0, ordersPerCustomer).boxed().toList(), customer.getValue(), customer.getKey());
+            List<Long> ids = lanedService.getProcessedOrders().stream()
+                    .filter(order -> order.getCustomer().equals(customer.getKey()))
+                    .map(Order::getId)
+                    .toList();
+            assertEquals(ordersPerCustomer, ids.size());
+        }
+        assertTrue(meterRegistry.get("order.lanes.imbalance").gauge().value() >= 1.0);
+    }
 }
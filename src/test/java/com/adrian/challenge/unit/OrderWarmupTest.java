@@ -0,0 +1,80 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.services.OrderWarmup;
+import com.adrian.challenge.validators.OrderValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OrderWarmupTest {
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private OrderProperties properties;
+    private OrderValidator validator;
+    private Validator beanValidator;
+
+    @BeforeEach
+    void setup() {
+        properties = new OrderProperties();
+        properties.getWarmup().setEnabled(true);
+        properties.getWarmup().setIterations(100);
+        validator = spy(new OrderValidator());
+        beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    @Test
+    void start_shouldRunSampleOrders() {
+        // Given
+        OrderWarmup warmup = new OrderWarmup(mapper, beanValidator, validator, properties);
+
+        // When
+        warmup.start();
+
+        // Then
+        verify(validator, times(100)).validate(any(Order.class));
+        assertTrue(warmup.isRunning());
+    }
+
+    @Test
+    void start_shouldStopOnceItsTimeIsUp() {
+        // Given
+        properties.getWarmup().setIterations(Integer.MAX_VALUE);
+        properties.getWarmup().setMaxDuration(Duration.ofMillis(200));
+        OrderWarmup warmup = new OrderWarmup(mapper, beanValidator, validator, properties);
+
+        // When
+        long start = System.nanoTime();
+        warmup.start();
+
+        // Then
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+    }
+
+    @Test
+    void start_byDefault_shouldDoNothing() {
+        // Given
+        OrderWarmup warmup = new OrderWarmup(mapper, beanValidator, validator, new OrderProperties());
+
+        // When
+        warmup.start();
+
+        // Then
+        verify(validator, never()).validate(any(Order.class));
+        assertFalse(new OrderProperties().getWarmup().isEnabled());
+    }
+}
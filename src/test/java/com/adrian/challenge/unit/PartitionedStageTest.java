@@ -0,0 +1,140 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.services.PartitionedStage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionedStageTest {
+
+    private MeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void laneOf_shouldMapAKeyToOneLaneAndSpreadKeysOverAllLanes() {
+        // Given
+        PartitionedStage<String> stage = new PartitionedStage<>(lanes(8, 16), executor, batch -> { },
+                (item, e) -> { }, meterRegistry);
+
+        // When
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            used.add(stage.laneOf("Customer " + i));
+        }
+
+        // Then
+        assertEquals(stage.laneOf("Customer 1"), stage.laneOf(new String("Customer 1")));
+        assertEquals(8, used.size());
+        assertEquals(0, stage.laneOf(null));
+    }
+
+    @Test
+    void offer_shouldHandleItemsOfAKeyOneAtATimeInOfferOrder() throws Exception {
+        // Given
+        int keys = 16;
+        int perKey = 200;
+        Map<String, List<Integer>> handled = new ConcurrentHashMap<>();
+        Map<String, AtomicBoolean> inProgress = new ConcurrentHashMap<>();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(keys * perKey);
+        PartitionedStage<int[]> stage = new PartitionedStage<>(lanes(4, 4_096), executor, batch -> {
+            for (int[] item : batch) {
+                String key = "Customer " + item[0];
+                if (!inProgress.computeIfAbsent(key, k -> new AtomicBoolean()).compareAndSet(false, true)) {
+                    overlapped.set(true);
+                }
+                handled.computeIfAbsent(key, k -> new ArrayList<>()).add(item[1]);
+                inProgress.get(key).set(false);
+                done.countDown();
+            }
+        }, (item, e) -> { }, meterRegistry);
+
+        // When
+        for (int sequence = 0; sequence < perKey; sequence++) {
+            for (int key = 0; key < keys; key++) {
+                assertTrue(stage.offer("Customer " + key, new int[]{key, sequence}));
+            }
+        }
+
+        // Then
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        for (List<Integer> sequences : handled.values()) {
+            for (int i = 0; i < perKey; i++) {
+                assertEquals(i, sequences.get(i));
+            }
+        }
+    }
+
+    @Test
+    void offer_withOneHotKey_shouldReportLaneImbalance() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        PartitionedStage<Integer> stage = new PartitionedStage<>(lanes(4, 256), executor, batch -> await(release),
+                (item, e) -> { }, meterRegistry);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            stage.offer("Hot customer", i);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (stage.getActiveLanes() == 0 || stage.getQueueDepth() == 100) {
+            assertTrue(System.nanoTime() < deadline, "the first item was not taken in time");
+            Thread.sleep(1);
+        }
+
+        // Then
+        assertEquals(4.0, meterRegistry.get("order.lanes.imbalance").gauge().value());
+        assertEquals(99.0, meterRegistry.get("order.lanes.queue.depth.max").gauge().value());
+        assertEquals(99.0, meterRegistry.get("order.lanes.queue.depth").gauge().value());
+        assertEquals(1.0, meterRegistry.get("order.lanes.active").gauge().value());
+        release.countDown();
+        assertTrue(stage.awaitIdle(5, TimeUnit.SECONDS));
+    }
+
+    private static OrderProperties.Lanes lanes(int count, int queueCapacity) {
+        OrderProperties.Lanes lanes = new OrderProperties.Lanes();
+        lanes.setEnabled(true);
+        lanes.setCount(count);
+        lanes.setQueueCapacity(queueCapacity);
+        return lanes;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
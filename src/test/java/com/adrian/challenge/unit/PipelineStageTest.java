@@ -0,0 +1,154 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.configs.OrderProperties;
+import com.adrian.challenge.services.PipelineStage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PipelineStageTest {
+
+    private MeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void offer_shouldNeverRunMoreWorkersThanParallelism() throws Exception {
+        // Given
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch processed = new CountDownLatch(200);
+        PipelineStage<Integer> stage = new PipelineStage<>("test", new OrderProperties.Stage(2, 256, 1), executor,
+                batch -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(1);
+                    running.decrementAndGet();
+                    processed.countDown();
+                }, (item, e) -> { }, meterRegistry);
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            assertTrue(stage.offer(i));
+        }
+
+        // Then
+        assertTrue(processed.await(10, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+        assertTrue(stage.awaitIdle(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void offer_shouldHandItemsQueuedDuringARunToTheNextRunAsOneBatch() throws Exception {
+        // Given
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        PipelineStage<Integer> stage = new PipelineStage<>("test", new OrderProperties.Stage(1, 64, 8), executor,
+                batch -> {
+                    batches.add(List.copyOf(batch));
+                    firstBatch.countDown();
+                    await(release);
+                }, (item, e) -> { }, meterRegistry);
+
+        // When
+        stage.offer(0);
+        assertTrue(firstBatch.await(1, TimeUnit.SECONDS));
+        for (int i = 1; i <= 10; i++) {
+            stage.offer(i);
+        }
+        release.countDown();
+
+        // Then
+        assertTrue(stage.awaitIdle(1, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(0), List.of(1, 2, 3, 4, 5, 6, 7, 8), List.of(9, 10)), batches);
+        assertEquals(3, meterRegistry.get("order.pipeline.batch.size").tag("stage", "test").summary().count());
+    }
+
+    @Test
+    void offer_whenQueueIsFull_shouldReturnFalse() {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        PipelineStage<Integer> stage = new PipelineStage<>("test", new OrderProperties.Stage(1, 2, 1), executor,
+                batch -> await(release), (item, e) -> { }, meterRegistry);
+        stage.offer(0);
+        waitUntil(() -> stage.getQueueDepth() == 0); // taken by the only worker
+
+        // When
+        boolean queued = stage.offer(1) & stage.offer(2);
+        boolean overflowed = stage.offer(3);
+
+        // Then
+        assertTrue(queued);
+        assertFalse(overflowed);
+        assertEquals(2.0, meterRegistry.get("order.pipeline.queue.depth").tag("stage", "test").gauge().value());
+        release.countDown();
+    }
+
+    @Test
+    void offer_whenExecutorRejectsTheRun_shouldFailQueuedItems() {
+        // Given
+        executor.shutdown();
+        ConcurrentHashMap<Integer, Throwable> failed = new ConcurrentHashMap<>();
+        PipelineStage<Integer> stage = new PipelineStage<>("test", new OrderProperties.Stage(1, 8, 1), executor,
+                batch -> { }, failed::put, meterRegistry);
+
+        // When
+        stage.offer(1);
+
+        // Then
+        assertTrue(failed.get(1) instanceof RejectedExecutionException);
+        assertEquals(0, stage.getQueueDepth());
+        assertEquals(0, stage.getActiveWorkers());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.adrian.challenge.unit;
+
+import com.adrian.challenge.services.RingBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTest {
+
+    @Test
+    void constructor_shouldRoundCapacityUpToPowerOfTwo() {
+        assertEquals(2, new RingBuffer<>(1).capacity());
+        assertEquals(8, new RingBuffer<>(5).capacity());
+        assertEquals(1024, new RingBuffer<>(1000).capacity());
+        assertEquals(1024, new RingBuffer<>(1024).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(0));
+    }
+
+    @Test
+    void poll_shouldReturnElementsInOfferOrderAcrossLaps() {
+        // Given
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+
+        // When & Then
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(buffer.offer(lap * 4 + i));
+            }
+            assertEquals(4, buffer.size());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(lap * 4 + i, buffer.poll());
+            }
+            assertNull(buffer.poll());
+            assertTrue(buffer.isEmpty());
+        }
+    }
+
+    @Test
+    void offer_whenFull_shouldReturnFalseUntilAnElementIsPolled() {
+        // Given
+        RingBuffer<String> buffer = new RingBuffer<>(2);
+        buffer.offer("a");
+        buffer.offer("b");
+
+        // When & Then
+        assertFalse(buffer.offer("c"));
+        assertEquals("a", buffer.poll());
+        assertTrue(buffer.offer("c"));
+        assertEquals("b", buffer.poll());
+        assertEquals("c", buffer.poll());
+    }
+
+    @Test
+    void offerAndPoll_fromManyThreads_shouldDeliverEveryElementExactlyOnce() throws Exception {
+        // Given
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 20_000;
+        int total = producers * perProducer;
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        ExecutorService threads = Executors.newFixedThreadPool(producers + consumers);
+        AtomicInteger consumed = new AtomicInteger();
+        BitSet seen = new BitSet(total);
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+
+        // When
+        for (int p = 0; p < producers; p++) {
+            int first = p * perProducer;
+            tasks.add(CompletableFuture.runAsync(() -> {
+                for (int i = first; i < first + perProducer; i++) {
+                    while (!buffer.offer(i)) {
+                        Thread.yield();
+                    }
+                }
+            }, threads));
+        }
+        for (int c = 0; c < consumers; c++) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                while (consumed.get() < total) {
+                    Integer element = buffer.poll();
+                    if (element == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    consumed.incrementAndGet();
+                    synchronized (seen) {
+                        assertFalse(seen.get(element), "delivered twice: " + element);
+                        seen.set(element);
+                    }
+                }
+            }, threads));
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        threads.shutdown();
+
+        // Then
+        assertEquals(total, seen.cardinality());
+        assertTrue(buffer.isEmpty());
+    }
+}
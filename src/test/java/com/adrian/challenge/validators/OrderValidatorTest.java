@@ -10,9 +10,11 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -61,6 +63,20 @@ class OrderValidatorTest {
         assertThrows(InvalidOrderAmountException.class, () -> validator.validate(order));
     }
 
+    @Test
+    void validate_WithAmountMismatch_ShouldThrowWithoutStackTrace() {
+        // Given
+        Order order = createValidOrder();
+        order.setAmount(new BigDecimal("150.00"));
+
+        // When
+        InvalidOrderAmountException exception = assertThrows(InvalidOrderAmountException.class,
+                () -> validator.validate(order));
+
+        // Then
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
     @Test
     void validate_WithAmountWithinTolerance_ShouldNotThrowException() {
         // Given
@@ -99,6 +115,112 @@ class OrderValidatorTest {
         assertDoesNotThrow(() -> validator.validate(order));
     }
 
+    @ParameterizedTest
+    @MethodSource("randomOrders")
+    void validate_ShouldMatchBigDecimalReference(Order order) {
+        // Given
+        String expected = referenceValidate(order);
+
+        // When
+        String actual;
+        try {
+            validator.validate(order);
+            actual = null;
+        } catch (InvalidOrderAmountException e) {
+            actual = e.getMessage();
+        }
+
+        // Then
+        assertEquals(expected, actual, () -> "Order " + order);
+    }
+
+    @Test
+    void validate_WithTotalOverflowingLong_ShouldFallBackToExactArithmetic() {
+        // Given
+        BigDecimal unitPrice = BigDecimal.valueOf(Long.MAX_VALUE / 100, 2);
+        Order order = Order.builder()
+            .customer("Test Customer")
+            .items(List.of(
+                Item.builder().productId(1L).name("Item 1").quantity(Integer.MAX_VALUE).unitPrice(unitPrice).build(),
+                Item.builder().productId(2L).name("Item 2").quantity(Integer.MAX_VALUE).unitPrice(unitPrice).build()))
+            .amount(unitPrice.multiply(BigDecimal.valueOf(2L * Integer.MAX_VALUE)))
+            .build();
+
+        // Then
+        assertDoesNotThrow(() -> validator.validate(order));
+        order.setAmount(order.getAmount().add(new BigDecimal("0.02")));
+        assertThrows(InvalidOrderAmountException.class, () -> validator.validate(order));
+    }
+
+    /**
+     * Random orders mixing prices of every scale the API accepts, magnitudes near the {@code long} limits and
+     * amounts at, just inside and just outside the tolerance. Seeded so failures are reproducible.
+     */
+    static Stream<Arguments> randomOrders() {
+        Random random = new Random(20240901L);
+        return Stream.generate(() -> Arguments.of(randomOrder(random))).limit(2_000);
+    }
+
+    private static Order randomOrder(Random random) {
+        int itemCount = random.nextInt(8);
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(Item.builder()
+                .productId((long) i)
+                .name("Item " + i)
+                .quantity(randomQuantity(random))
+                .unitPrice(randomDecimal(random))
+                .build());
+        }
+        BigDecimal total = items.stream()
+            .map(item -> item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal amount = switch (random.nextInt(5)) {
+            case 0 -> total;
+            case 1 -> total.add(new BigDecimal("0.01"));
+            case 2 -> total.subtract(new BigDecimal("0.02"));
+            case 3 -> total.add(BigDecimal.valueOf(random.nextInt(3) - 1, 3));
+            default -> randomDecimal(random);
+        };
+        return Order.builder().customer("Test Customer").items(items).amount(amount).build();
+    }
+
+    private static int randomQuantity(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> Integer.MAX_VALUE - random.nextInt(10);
+            case 1 -> -random.nextInt(100);
+            default -> random.nextInt(1_000);
+        };
+    }
+
+    private static BigDecimal randomDecimal(Random random) {
+        long unscaled = switch (random.nextInt(4)) {
+            case 0 -> Long.MAX_VALUE - random.nextInt(1_000);
+            case 1 -> Long.MIN_VALUE + random.nextInt(1_000);
+            case 2 -> random.nextLong() >> random.nextInt(64);
+            default -> random.nextInt(100_000);
+        };
+        BigDecimal value = BigDecimal.valueOf(unscaled, random.nextInt(6) - 1);
+        return random.nextInt(10) == 0 ? new BigDecimal(value.unscaledValue().shiftLeft(8), value.scale()) : value;
+    }
+
+    /**
+     * The original stream-based validation, kept as the reference the fixed-point path has to agree with.
+     */
+    private static String referenceValidate(Order order) {
+        BigDecimal expectedAmount = order.getItems().stream()
+                .map(item -> item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        BigDecimal difference = expectedAmount.subtract(order.getAmount()).abs();
+
+        if (difference.compareTo(new BigDecimal("0.01")) > 0) {
+            return "Mismatch between orderAmount and sum of item totals. Expected: " +
+                    expectedAmount + ", but got: " + order.getAmount();
+        }
+        return null;
+    }
+
     private Order createValidOrder() {
         Item item = Item.builder()
             .productId(1L)
@@ -0,0 +1,180 @@
+package com.adrian.challenge.validators;
+
+import com.adrian.challenge.exceptions.CustomBadRequestException;
+import com.adrian.challenge.exceptions.InvalidOrderAmountException;
+import com.adrian.challenge.models.Item;
+import com.adrian.challenge.models.Order;
+import com.adrian.challenge.repositories.CompactOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingOrderReaderTest {
+
+    private ObjectMapper mapper;
+    private StreamingOrderReader reader;
+
+    @BeforeEach
+    void setUp() {
+        mapper = new ObjectMapper();
+        reader = new StreamingOrderReader(mapper.getFactory(),
+                Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC));
+    }
+
+    @Test
+    void read_WithValidOrder_ShouldReturnCompactOrder() throws IOException {
+        // Given
+        Order order = createOrder(40);
+
+        // When
+        CompactOrder compact = read(mapper.writeValueAsString(order));
+
+        // Then
+        assertEquals(0, compact.getId());
+        assertEquals(order.getCustomer(), compact.getCustomer());
+        assertEquals(CompactOrder.toCents(order.getAmount()), compact.getAmountCents());
+        assertEquals(Instant.parse("2025-01-01T00:00:00Z").toEpochMilli(), compact.getCreatedAtMillis());
+        assertEquals(40, compact.getItemCount());
+        assertEquals(order.getItems(), compact.toOrder().getItems());
+    }
+
+    @Test
+    void read_WithAmountAfterItems_ShouldValidateTotal() throws IOException {
+        // Given
+        String body = """
+                {"items":[{"productId":1,"name":"Item 1","quantity":2,"unitPrice":50.00}],
+                 "customer":"Test Customer","id":99,"extra":{"ignored":[1,2]},"amount":100.01}""";
+
+        // When
+        CompactOrder compact = read(body);
+
+        // Then
+        assertEquals(10_001, compact.getAmountCents());
+        assertEquals(1, compact.getItemCount());
+    }
+
+    @Test
+    void read_WithThreeDecimalPrices_ShouldKeepThemExactly() throws IOException {
+        // Given
+        String body = """
+                {"customer":"Test Customer","amount":1.001,"items":[
+                 {"productId":1,"name":"Item 1","quantity":3,"unitPrice":0.333},
+                 {"productId":2,"name":"Item 2","quantity":1,"unitPrice":0.002}]}""";
+
+        // When
+        CompactOrder compact = read(body);
+
+        // Then
+        assertEquals(CompactOrder.NOT_CENTS, compact.getAmountCents());
+        assertEquals(new BigDecimal("1.001"), compact.getAmount());
+        assertEquals(new BigDecimal("0.333"), compact.toOrder().getItems().get(0).getUnitPrice());
+        assertEquals(new BigDecimal("0.002"), compact.toOrder().getItems().get(1).getUnitPrice());
+    }
+
+    @Test
+    void read_WithPricesBeyondLongCents_ShouldKeepThemExactly() throws IOException {
+        // Given
+        String body = """
+                {"customer":"Test Customer","amount":200000000000000000.00,"items":[
+                 {"productId":1,"name":"Item 1","quantity":2,"unitPrice":100000000000000000.00}]}""";
+
+        // When
+        CompactOrder compact = read(body);
+
+        // Then
+        assertEquals(new BigDecimal("200000000000000000.00"), compact.getAmount());
+        assertEquals(new BigDecimal("100000000000000000.00"), compact.getUnitPrice(0));
+    }
+
+    @Test
+    void read_WithInvalidItem_ShouldRejectBeforeReadingTheRest() {
+        // Given: everything after the invalid item is not even valid JSON
+        String body = """
+                {"customer":"Test Customer","amount":100.00,"items":[
+                 {"productId":1,"name":"Item 1","quantity":1,"unitPrice":50.00},
+                 {"productId":2,"name":"Item 2","quantity":0,"unitPrice":50.00},
+                 this is not json""";
+
+        // Then
+        CustomBadRequestException exception = assertThrows(CustomBadRequestException.class, () -> read(body));
+        assertEquals("items[1].quantity: Quantity must be at least 1", exception.getMessage());
+    }
+
+    @Test
+    void read_WhenItemsExceedAmountGivenFirst_ShouldRejectEarly() {
+        // Given
+        String body = """
+                {"customer":"Test Customer","amount":60.00,"items":[
+                 {"productId":1,"name":"Item 1","quantity":1,"unitPrice":50.00},
+                 {"productId":2,"name":"Item 2","quantity":1,"unitPrice":50.00},
+                 this is not json""";
+
+        // Then
+        InvalidOrderAmountException exception = assertThrows(InvalidOrderAmountException.class, () -> read(body));
+        assertTrue(exception.getMessage().contains("The first 2 items already add up to 100.00"));
+    }
+
+    @Test
+    void read_WithAmountMismatch_ShouldThrowSameMessageAsValidator() throws IOException {
+        // Given
+        Order order = createOrder(3);
+        order.setAmount(order.getAmount().add(new BigDecimal("5.00")));
+        String expected = assertThrows(InvalidOrderAmountException.class,
+                () -> new OrderValidator().validate(order)).getMessage();
+
+        // Then
+        String body = mapper.writeValueAsString(order);
+        assertEquals(expected, assertThrows(InvalidOrderAmountException.class, () -> read(body)).getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"customer\":\" \",\"amount\":1.00,\"items\":[{\"productId\":1,\"name\":\"a\",\"quantity\":1,\"unitPrice\":1.00}]}",
+            "{\"customer\":\"c\",\"amount\":-1.00,\"items\":[{\"productId\":1,\"name\":\"a\",\"quantity\":1,\"unitPrice\":1.00}]}",
+            "{\"customer\":\"c\",\"amount\":0,\"items\":[]}",
+            "{\"customer\":\"c\",\"amount\":0,\"items\":null}",
+            "{\"customer\":\"c\",\"items\":[{\"productId\":1,\"name\":\"a\",\"quantity\":1,\"unitPrice\":1.00}]}",
+            "{\"customer\":\"c\",\"amount\":1.00,\"items\":[{\"name\":\"a\",\"quantity\":1,\"unitPrice\":1.00}]}",
+            "{\"customer\":\"c\",\"amount\":1.00,\"items\":[{\"productId\":1,\"name\":\"\",\"quantity\":1,\"unitPrice\":1.00}]}",
+            "{\"customer\":\"c\",\"amount\":1.00,\"items\":[{\"productId\":1,\"name\":\"a\",\"quantity\":1,\"unitPrice\":-1.00}]}",
+            "{\"customer\":\"c\",\"amount\":1.00,\"items\":[{\"productId\":1,\"name\":\"a\",\"quantity\":1}]}",
+            "{\"customer\":\"c\",\"amount\":1.00,\"items\":{}}",
+            "{\"customer\":\"c\",\"amount\":1.00,\"items\":[{\"productId\":1,",
+            "[]"
+    })
+    void read_WithInvalidOrder_ShouldThrowBadRequest(String body) {
+        // Then
+        assertThrows(CustomBadRequestException.class, () -> read(body));
+    }
+
+    private CompactOrder read(String body) throws IOException {
+        return reader.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Order createOrder(int itemCount) {
+        List<Item> items = new ArrayList<>(itemCount);
+        BigDecimal amount = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            BigDecimal unitPrice = BigDecimal.valueOf(1_000 + i * 37L, 2);
+            items.add(Item.builder().productId((long) i).name("Item " + i).quantity(1 + i % 3).unitPrice(unitPrice).build());
+            amount = amount.add(unitPrice.multiply(BigDecimal.valueOf(1 + i % 3)));
+        }
+        return Order.builder().customer("Test Customer").items(items).amount(amount).build();
+    }
+}